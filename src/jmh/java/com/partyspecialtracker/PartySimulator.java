@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.Player;
+import net.runelite.api.Scene;
+import net.runelite.api.VarPlayer;
+import net.runelite.api.WorldView;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.PlayerSpawned;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.party.PartyMember;
+import net.runelite.client.party.PartyService;
+import net.runelite.client.party.WSClient;
+import net.runelite.client.party.events.UserPart;
+import net.runelite.client.plugins.party.PartyPluginService;
+import net.runelite.client.plugins.party.messages.StatusUpdate;
+import net.runelite.client.ui.overlay.OverlayManager;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Headless party used by the benchmarks.<br>
+ * Wires the plugin and overlay against stubbed client and party services, then generates the event streams the plugin would see in a live party.
+ * Client, scene and players are plain stubs answering from fixed values, so the measured code doesn't run through Mockito.
+ */
+class PartySimulator
+{
+	private static final int BASE_X = 3200;
+	private static final int BASE_Y = 3200;
+	private static final int SCENE_SIZE = 104;
+
+	final PartySpecialTrackerPlugin plugin = new PartySpecialTrackerPlugin();
+	final PartySpecialTrackerOverlay overlay;
+	final Client client;
+	private final Map<String, Object> clientValues = new HashMap<>();
+	final Graphics2D graphics;
+
+	private final int partySize;
+	private final List<StatusUpdate> statusUpdates = new ArrayList<>();
+	private final VarbitChanged specialVarbit = new VarbitChanged();
+	private int statusIndex;
+	private int gameCycle;
+	private int localSpecial = 1000;
+
+	PartySimulator(int partySize) throws Exception
+	{
+		this.partySize = partySize;
+
+		clientValues.put("getGameState", GameState.LOGGED_IN);
+		clientValues.put("getViewportWidth", 765);
+		clientValues.put("getViewportHeight", 503);
+		clientValues.put("getScale", 512);
+		clientValues.put("getCameraPitch", 256);
+		clientValues.put("getCameraZ", -1000);
+		clientValues.put("getGameCycle", gameCycle);
+
+		//flat scene so every simulated player projects
+		Map<String, Object> sceneValues = new HashMap<>();
+		sceneValues.put("getTileHeights", new int[4][SCENE_SIZE + 1][SCENE_SIZE + 1]);
+		sceneValues.put("getTileSettings", new byte[4][SCENE_SIZE][SCENE_SIZE]);
+		Scene scene = stub(Scene.class, sceneValues);
+		clientValues.putAll(sceneValues);
+		clientValues.put("getScene", scene);
+		Map<String, Object> worldViewValues = new HashMap<>(sceneValues);
+		worldViewValues.put("getScene", scene);
+		WorldView worldView = stub(WorldView.class, worldViewValues);
+		clientValues.put("getTopLevelWorldView", worldView);
+		clientValues.put("getWorldView", worldView);
+		client = stub(Client.class, clientValues);
+
+		PartySpecialTrackerConfig config = new PartySpecialTrackerConfig()
+		{
+			@Override
+			public boolean getShowAsTracker()
+			{
+				return true;
+			}
+
+			@Override
+			public int getTickDisplay()
+			{
+				return 5;
+			}
+		};
+
+		PartyMember localMember = mock(PartyMember.class);
+		when(localMember.getMemberId()).thenReturn(0L);
+		when(localMember.getDisplayName()).thenReturn(name(0));
+		when(localMember.isLoggedIn()).thenReturn(true);
+		PartyService partyService = mock(PartyService.class);
+		when(partyService.isInParty()).thenReturn(true);
+		when(partyService.getLocalMember()).thenReturn(localMember);
+		when(partyService.getMemberById(anyLong())).thenReturn(localMember);
+
+		overlay = new PartySpecialTrackerOverlay(client, plugin);
+
+		inject("client", client);
+		inject("config", config);
+		inject("partyService", partyService);
+		inject("partyPluginService", mock(PartyPluginService.class));
+		inject("overlayManager", mock(OverlayManager.class));
+		inject("partySpecialTrackerOverlay", overlay);
+		inject("wsClient", mock(WSClient.class));
+		inject("clientThread", mock(ClientThread.class));
+		plugin.startUp();
+
+		Player local = player(0);
+		clientValues.put("getLocalPlayer", local);
+
+		for (int i = 0; i < partySize; i++)
+		{
+			Player player = i == 0 ? local : player(i);
+			PlayerSpawned spawned = new PlayerSpawned(player);
+			plugin.onPlayerSpawned(spawned);
+
+			StatusUpdate update = new StatusUpdate();
+			update.setMemberId(i);
+			update.setCharacterName(name(i));
+			update.setSpecEnergy(100);
+			statusUpdates.add(update);
+			plugin.onStatusUpdate(update);
+		}
+
+		specialVarbit.setVarpId(VarPlayer.SPECIAL_ATTACK_PERCENT);
+
+		//publish the first render snapshot
+		plugin.onGameTick(nextGameTick());
+
+		BufferedImage canvas = new BufferedImage(765, 503, BufferedImage.TYPE_INT_ARGB);
+		graphics = canvas.createGraphics();
+	}
+
+	/**
+	 * Next status packet in round-robin member order, special alternates between drained and restored
+	 */
+	StatusUpdate nextStatusUpdate()
+	{
+		StatusUpdate update = statusUpdates.get(statusIndex);
+		statusIndex = (statusIndex + 1) % partySize;
+		update.setSpecEnergy(update.getSpecEnergy() >= 50 ? update.getSpecEnergy() - 50 : 100);
+		return update;
+	}
+
+	/**
+	 * Local special varp write, drains on every other call
+	 */
+	VarbitChanged nextSpecialVarbit()
+	{
+		localSpecial = localSpecial >= 500 ? localSpecial - 500 : 1000;
+		specialVarbit.setValue(localSpecial);
+		return specialVarbit;
+	}
+
+	GameTick nextGameTick()
+	{
+		gameCycle += 30;
+		clientValues.put("getGameCycle", gameCycle);
+		return GameTick.INSTANCE;
+	}
+
+	/**
+	 * Advance a single client cycle, as happens between frames
+	 */
+	void nextFrame()
+	{
+		gameCycle++;
+		clientValues.put("getGameCycle", gameCycle);
+	}
+
+	UserPart part(long memberId)
+	{
+		return new UserPart(memberId);
+	}
+
+	StatusUpdate rejoin(long memberId)
+	{
+		return statusUpdates.get((int) memberId);
+	}
+
+	static String name(int index)
+	{
+		return "Member " + index;
+	}
+
+	private Player player(int index)
+	{
+		//spread members over a few tiles so some share a tile and stack
+		int x = BASE_X + (index % 8);
+		int y = BASE_Y + (index / 8) % 8;
+		WorldPoint worldPoint = new WorldPoint(x, y, 0);
+		LocalPoint localPoint = new LocalPoint((SCENE_SIZE / 2 + index % 8) * 128 + 64, (SCENE_SIZE / 2 + (index / 8) % 8) * 128 + 64);
+
+		Map<String, Object> values = new HashMap<>();
+		values.put("getName", name(index));
+		values.put("getWorldLocation", worldPoint);
+		values.put("getLocalLocation", localPoint);
+		return stub(Player.class, values);
+	}
+
+	/**
+	 * Interface answering each method from a fixed value, arguments are ignored.<br>
+	 * Methods without a value return null, false or zero like an unstubbed mock. Values are boxed up front so calls don't allocate.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> T stub(Class<T> type, Map<String, Object> values)
+	{
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				case "toString":
+					return type.getSimpleName() + values.get("getName");
+				default:
+					Object value = values.get(method.getName());
+					return value != null ? value : defaultValue(method.getReturnType());
+			}
+		});
+	}
+
+	private static Object defaultValue(Class<?> type)
+	{
+		if (!type.isPrimitive() || type == void.class)
+		{
+			return null;
+		}
+		if (type == boolean.class)
+		{
+			return Boolean.FALSE;
+		}
+		if (type == char.class)
+		{
+			return (char) 0;
+		}
+		if (type == long.class)
+		{
+			return 0L;
+		}
+		if (type == float.class)
+		{
+			return 0f;
+		}
+		if (type == double.class)
+		{
+			return 0d;
+		}
+		if (type == byte.class)
+		{
+			return (byte) 0;
+		}
+		if (type == short.class)
+		{
+			return (short) 0;
+		}
+		return 0;
+	}
+
+	private void inject(String fieldName, Object value) throws ReflectiveOperationException
+	{
+		Field field = PartySpecialTrackerPlugin.class.getDeclaredField(fieldName);
+		field.setAccessible(true);
+		field.set(plugin, value);
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import net.runelite.api.Client;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Allocation checks of the steady state render path, without mocks in the measured code.<br>
+ * Run with {@code ./gradlew jmh -PjmhArgs="PartySpecialTrackerAllocationBenchmark -prof gc"},
+ * gc.alloc.rate.norm of every benchmark is expected to be 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PartySpecialTrackerAllocationBenchmark
+{
+	private static final int PARTY_SIZE = 200;
+
+	private PartySpecialTrackerOverlay overlay;
+	private PartySpecialTrackerLabelCache.Sprite sprite;
+	private final PartySpecialTrackerTileIndex tileIndex = new PartySpecialTrackerTileIndex();
+	private Graphics2D graphics;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		graphics = new BufferedImage(765, 503, BufferedImage.TYPE_INT_ARGB).createGraphics();
+		overlay = new PartySpecialTrackerOverlay(PartySimulator.stub(Client.class, Collections.emptyMap()), new PartySpecialTrackerPlugin());
+
+		PartySpecialTrackerLabelCache labelCache = new PartySpecialTrackerLabelCache();
+		graphics.setFont(labelCache.GetFont(12, true));
+		sprite = labelCache.Get(graphics, "Member 50%", " 🗲3", Color.CYAN);
+	}
+
+	@Benchmark
+	public int tileIndex()
+	{
+		tileIndex.Clear();
+		int stacked = 0;
+		for (int i = 0; i < PARTY_SIZE; i++)
+		{
+			stacked += tileIndex.Add(52 + (i % 8), 52 + (i / 8) % 8, 0);
+		}
+		return stacked;
+	}
+
+	@Benchmark
+	public void blitLabel()
+	{
+		overlay.RenderSpecialText(graphics, 100, 100, sprite, 0xFF);
+	}
+
+	@Benchmark
+	public void blitFadingLabel()
+	{
+		overlay.RenderSpecialText(graphics, 100, 100, sprite, 0x80);
+	}
+}
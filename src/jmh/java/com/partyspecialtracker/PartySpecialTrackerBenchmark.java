@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Hot path benchmarks against a {@link PartySimulator}.<br>
+ * Run with {@code ./gradlew jmh}, add {@code -PjmhArgs="-prof gc"} to see allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PartySpecialTrackerBenchmark
+{
+	@Param({"5", "25", "100", "200"})
+	int partySize;
+
+	private PartySimulator simulator;
+	private long partingMember;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception
+	{
+		simulator = new PartySimulator(partySize);
+	}
+
+	/**
+	 * Queue a status update and apply it as the next tick would
+	 */
+	@Benchmark
+	public void updateMember()
+	{
+		simulator.plugin.onStatusUpdate(simulator.nextStatusUpdate());
+		simulator.plugin.DrainInbox();
+	}
+
+	@Benchmark
+	public void gameTick()
+	{
+		simulator.plugin.onGameTick(simulator.nextGameTick());
+	}
+
+	@Benchmark
+	public void varbitChanged()
+	{
+		simulator.plugin.onVarbitChanged(simulator.nextSpecialVarbit());
+	}
+
+	/**
+	 * Part a member and have them rejoin so the party size stays constant
+	 */
+	@Benchmark
+	public void userPart()
+	{
+		partingMember = 1 + (partingMember % (partySize - 1));
+		simulator.plugin.onUserPart(simulator.part(partingMember));
+		simulator.plugin.onStatusUpdate(simulator.rejoin(partingMember));
+		simulator.plugin.DrainInbox();
+	}
+
+	@Benchmark
+	public void render(Blackhole blackhole)
+	{
+		simulator.nextFrame();
+		blackhole.consume(simulator.overlay.render(simulator.graphics));
+	}
+}
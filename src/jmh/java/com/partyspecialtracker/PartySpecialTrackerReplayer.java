@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import net.runelite.api.VarPlayer;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.client.plugins.party.messages.StatusUpdate;
+
+/**
+ * Feeds a session written by {@link PartySpecialTrackerRecorder} back through the plugins event handlers.
+ */
+class PartySpecialTrackerReplayer
+{
+	private final PartySpecialTrackerPlugin plugin;
+
+	PartySpecialTrackerReplayer(PartySpecialTrackerPlugin plugin)
+	{
+		this.plugin = plugin;
+	}
+
+	/**
+	 * Replay a recorded session
+	 * @param file Recording to replay
+	 * @param realTime Wait between events as they were recorded, otherwise replay as fast as possible
+	 * @return Number of events replayed
+	 */
+	int Replay(Path file, boolean realTime) throws IOException, InterruptedException
+	{
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		if (buffer.remaining() < 6 || buffer.getInt() != PartySpecialTrackerRecorder.MAGIC)
+		{
+			throw new IOException("Not a tracker recording: " + file);
+		}
+		short version = buffer.getShort();
+		if (version != PartySpecialTrackerRecorder.VERSION)
+		{
+			throw new IOException("Unsupported tracker recording version " + version);
+		}
+
+		long startNanos = System.nanoTime();
+		int events = 0;
+		while (buffer.hasRemaining())
+		{
+			byte type = buffer.get();
+			long nanos = buffer.getLong();
+
+			if (realTime)
+			{
+				long wait = nanos - (System.nanoTime() - startNanos);
+				if (wait > 0)
+				{
+					TimeUnit.NANOSECONDS.sleep(wait);
+				}
+			}
+
+			Dispatch(type, buffer);
+			events++;
+		}
+		return events;
+	}
+
+	private void Dispatch(byte type, ByteBuffer buffer) throws IOException
+	{
+		switch (type)
+		{
+			case PartySpecialTrackerRecorder.STATUS_UPDATE:
+			{
+				StatusUpdate update = new StatusUpdate();
+				update.setMemberId(buffer.getLong());
+				int special = buffer.getInt();
+				update.setSpecEnergy(special == -1 ? null : special);
+				short nameLength = buffer.getShort();
+				if (nameLength >= 0)
+				{
+					byte[] name = new byte[nameLength];
+					buffer.get(name);
+					update.setCharacterName(new String(name, StandardCharsets.UTF_8));
+				}
+				plugin.onStatusUpdate(update);
+				break;
+			}
+			case PartySpecialTrackerRecorder.FRINGE_UPDATE:
+			{
+				long memberId = buffer.getLong();
+				int special = buffer.getInt();
+				int sequence = buffer.getInt();
+				PartySpecialTrackerFringeConditionUpdate update = new PartySpecialTrackerFringeConditionUpdate(special == -1 ? null : special, sequence == -1 ? null : sequence);
+				update.setMemberId(memberId);
+				plugin.onPartySpecialTrackerFringeConditionUpdate(update);
+				break;
+			}
+			case PartySpecialTrackerRecorder.SPECIAL_UPDATE:
+			{
+				long memberId = buffer.getLong();
+				PartySpecialTrackerSpecialUpdate update = new PartySpecialTrackerSpecialUpdate(buffer.getInt());
+				update.setMemberId(memberId);
+				plugin.onPartySpecialTrackerSpecialUpdate(update);
+				break;
+			}
+			case PartySpecialTrackerRecorder.SPECIAL_VARBIT:
+			{
+				VarbitChanged event = new VarbitChanged();
+				event.setVarpId(VarPlayer.SPECIAL_ATTACK_PERCENT);
+				event.setValue(buffer.getInt());
+				plugin.onVarbitChanged(event);
+				break;
+			}
+			case PartySpecialTrackerRecorder.GAME_TICK:
+				//recorded tick is informational, the handler reads the clients own
+				buffer.getInt();
+				plugin.onGameTick(GameTick.INSTANCE);
+				break;
+			default:
+				throw new IOException("Unknown record type " + type);
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.util.Arrays;
+
+import lombok.Value;
+
+/**
+ * Party wide totals kept up to date as member specials change, never by iterating the members.<br>
+ * Members are bucketed by special in intrusive lists, so the lowest member is the head of the first non-empty bucket.
+ * Written from the client thread only, readers get an immutable {@link Totals}.
+ */
+class PartySpecialTrackerAggregates
+{
+	private static final int BUCKETS = PartySpecialTrackerMember.MAX_SPECIAL + 1;
+
+	private final PartySpecialTrackerMember[] heads = new PartySpecialTrackerMember[BUCKETS];
+	private final int[] counts = new int[BUCKETS];
+
+	private int size;
+	private long totalSpecial;
+	private int threshold;
+	private int belowThreshold;
+	private int draining;
+
+	/*changed since the last publish*/
+	private boolean dirty = true;
+
+	/**
+	 * Add a member or move it to its new special
+	 */
+	void Update(PartySpecialTrackerMember member, int special)
+	{
+		special = Math.max(0, Math.min(PartySpecialTrackerMember.MAX_SPECIAL, special));
+		int previous = member.getAggregateSpecial();
+		if (previous == special)
+		{
+			return;
+		}
+
+		if (previous == -1)
+		{
+			size++;
+		}
+		else
+		{
+			Unlink(member, previous);
+		}
+		Link(member, special);
+		dirty = true;
+	}
+
+	void Remove(PartySpecialTrackerMember member)
+	{
+		int previous = member.getAggregateSpecial();
+		if (previous == -1)
+		{
+			return;
+		}
+
+		Unlink(member, previous);
+		member.setAggregateSpecial(-1);
+		size--;
+		dirty = true;
+	}
+
+	/**
+	 * Count of members with an active drain timer, see {@link PartySpecialTrackerMember#StartTrackingDrain}
+	 */
+	void SetDraining(int draining)
+	{
+		if (this.draining != draining)
+		{
+			this.draining = draining;
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Special members are counted below, only recounted from the buckets when it changes
+	 */
+	void SetThreshold(int threshold)
+	{
+		threshold = Math.max(0, Math.min(BUCKETS, threshold));
+		if (this.threshold == threshold)
+		{
+			return;
+		}
+
+		this.threshold = threshold;
+		belowThreshold = 0;
+		for (int special = 0; special < threshold; special++)
+		{
+			belowThreshold += counts[special];
+		}
+		dirty = true;
+	}
+
+	void Clear()
+	{
+		Arrays.fill(heads, null);
+		Arrays.fill(counts, 0);
+		size = 0;
+		totalSpecial = 0;
+		belowThreshold = 0;
+		draining = 0;
+		dirty = true;
+	}
+
+	/**
+	 * Current totals, or null if nothing has changed since the previous call
+	 */
+	Totals Publish()
+	{
+		if (!dirty)
+		{
+			return null;
+		}
+		dirty = false;
+
+		for (int special = 0; special < BUCKETS; special++)
+		{
+			PartySpecialTrackerMember lowest = heads[special];
+			if (lowest != null)
+			{
+				return new Totals(size, totalSpecial, belowThreshold, lowest.getName(), special, draining);
+			}
+		}
+		return new Totals(size, totalSpecial, belowThreshold, null, -1, draining);
+	}
+
+	private void Link(PartySpecialTrackerMember member, int special)
+	{
+		PartySpecialTrackerMember head = heads[special];
+		member.setAggregatePrev(null);
+		member.setAggregateNext(head);
+		if (head != null)
+		{
+			head.setAggregatePrev(member);
+		}
+		heads[special] = member;
+		member.setAggregateSpecial(special);
+
+		counts[special]++;
+		totalSpecial += special;
+		if (special < threshold)
+		{
+			belowThreshold++;
+		}
+	}
+
+	private void Unlink(PartySpecialTrackerMember member, int special)
+	{
+		PartySpecialTrackerMember prev = member.getAggregatePrev();
+		PartySpecialTrackerMember next = member.getAggregateNext();
+		if (prev == null)
+		{
+			heads[special] = next;
+		}
+		else
+		{
+			prev.setAggregateNext(next);
+		}
+		if (next != null)
+		{
+			next.setAggregatePrev(prev);
+		}
+		member.setAggregatePrev(null);
+		member.setAggregateNext(null);
+
+		counts[special]--;
+		totalSpecial -= special;
+		if (special < threshold)
+		{
+			belowThreshold--;
+		}
+	}
+
+	/**
+	 * Party totals at the end of a tick
+	 */
+	@Value
+	static class Totals
+	{
+		static final Totals EMPTY = new Totals(0, 0, 0, null, -1, 0);
+
+		int members;
+		long totalSpecial;
+		/*members below the desired special*/
+		int belowDesired;
+		/*null without members*/
+		String lowestName;
+		int lowestSpecial;
+		/*members with an active drain timer*/
+		int draining;
+	}
+}
@@ -216,6 +216,27 @@ public interface PartySpecialTrackerConfig extends Config
 		return true;
 	}
 
+	@Range(max=104, min=0)
+	@ConfigItem(
+			position = 10,
+			keyName = "maxDistance",
+			name = "Max Distance",
+			description = "Only draw members within this many tiles of you, 0 draws every member in the scene",
+			section = textOverlay)
+	default int maxDistance() { return 0; }
+
+	@ConfigItem(
+			keyName = "spreadLabels",
+			name = "Spread Labels",
+			description = "Move labels up when they would overlap labels of nearby members",
+			position = 11,
+			section = textOverlay
+	)
+	default boolean spreadLabels()
+	{
+		return false;
+	}
+
 	@ConfigItem(
 			keyName = "dimXfer",
 			name = "Dim Xfer",
@@ -250,4 +271,74 @@ public interface PartySpecialTrackerConfig extends Config
 		return 230;
 	}
 
+	@ConfigItem(
+			keyName = "sendSpecialUpdates",
+			name = "Send Special Updates",
+			description = "Send your special to the party as soon as it changes instead of waiting on the party status update, requires Track Me",
+			position = 13,
+			section = otherOverlay
+	)
+	default boolean sendSpecialUpdates()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+			keyName = "debugOverlay",
+			name = "Debug Overlay",
+			description = "Show latency and event rates of the tracker, for diagnosing frame drops in large parties",
+			position = 14,
+			section = otherOverlay
+	)
+	default boolean debugOverlay()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+			keyName = "recordSession",
+			name = "Record Session",
+			description = "Record tracker events to .runelite/party-special-tracker for offline replay",
+			position = 15,
+			section = otherOverlay
+	)
+	default boolean recordSession()
+	{
+		return false;
+	}
+
+	@Range(max=240, min=0)
+	@ConfigItem(
+			keyName="memberTimeout",
+			name="Member Timeout",
+			description="Minutes without an update before a party member stops being tracked, 0 never times out",
+			position=16,
+			section = otherOverlay)
+	default int memberTimeout() {
+		return 0;
+	}
+
+	@Range(max=500, min=1)
+	@ConfigItem(
+			keyName="maxMembers",
+			name="Max Members",
+			description="Most party members tracked at once, the least recently seen are dropped first",
+			position=17,
+			section = otherOverlay)
+	default int maxMembers() {
+		return 200;
+	}
+
+	@ConfigItem(
+			keyName = "sidePanel",
+			name = "Side Panel",
+			description = "Show party special totals in a side panel",
+			position = 18,
+			section = otherOverlay
+	)
+	default boolean sidePanel()
+	{
+		return false;
+	}
+
 }
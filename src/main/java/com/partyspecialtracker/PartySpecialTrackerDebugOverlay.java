@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.util.List;
+import javax.inject.Inject;
+
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LayoutableRenderableEntity;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+/**
+ * Debug panel of {@link PartySpecialTrackerMetrics}, text is rebuilt once a second rather than every frame.
+ */
+public class PartySpecialTrackerDebugOverlay extends OverlayPanel
+{
+	private static final long REFRESH_NANOS = 1_000_000_000L;
+
+	private final PartySpecialTrackerPlugin plugin;
+	private long lastRefresh;
+
+	@Inject
+	PartySpecialTrackerDebugOverlay(PartySpecialTrackerPlugin plugin)
+	{
+		super(plugin);
+		this.plugin = plugin;
+		setPosition(OverlayPosition.TOP_LEFT);
+		setClearChildren(false);
+	}
+
+	@Override
+	public Dimension render(Graphics2D graphics)
+	{
+		long now = System.nanoTime();
+		if (lastRefresh == 0 || now - lastRefresh >= REFRESH_NANOS)
+		{
+			lastRefresh = now;
+			Refresh();
+		}
+		return super.render(graphics);
+	}
+
+	private void Refresh()
+	{
+		PartySpecialTrackerMetrics metrics = plugin.getMetrics();
+		metrics.Roll();
+
+		List<LayoutableRenderableEntity> children = panelComponent.getChildren();
+		children.clear();
+		children.add(TitleComponent.builder().text("Special Tracker").build());
+		children.add(LineComponent.builder().left("").right("p50 / p99 / max µs, /s").build());
+
+		for (PartySpecialTrackerMetrics.Probe probe : PartySpecialTrackerMetrics.Probe.values())
+		{
+			PartySpecialTrackerMetrics.Histogram histogram = metrics.Get(probe);
+			children.add(LineComponent.builder()
+				.left(probe.getDisplayName())
+				.right(String.format("%s / %s / %s, %.0f",
+					Micros(histogram.Percentile(0.5)),
+					Micros(histogram.Percentile(0.99)),
+					Micros(histogram.Max()),
+					histogram.getRate()))
+				.build());
+		}
+	}
+
+	private static String Micros(long nanos)
+	{
+		return String.format("%.1f", nanos / 1000d);
+	}
+}
@@ -29,8 +29,15 @@ import lombok.Value;
 import net.runelite.client.party.messages.PartyMemberMessage;
 
 
+/**
+ * Sent when the senders special drained in a way the status update won't pick up.<br>
+ * Carries the special after the drain so receivers can apply it directly, the sequence orders packets from the same sender.<br>
+ * Senders on older versions send the packet without any fields, those are left null and only mark the drain.
+ */
 @Value
 @EqualsAndHashCode(callSuper = true)
 public class PartySpecialTrackerFringeConditionUpdate extends PartyMemberMessage
 {
+	Integer special;
+	Integer sequence;
 }
\ No newline at end of file
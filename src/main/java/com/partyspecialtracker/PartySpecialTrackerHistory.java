@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+/**
+ * Fixed capacity ring buffer of (tick, special) samples for a single member.<br>
+ * Oldest samples are overwritten once full so memory stays constant for the whole session, ticks are appended in order which keeps range queries to a binary search.<br>
+ * Local ticks restart on login while the member is kept, samples ahead of a newer tick are from an earlier session and are dropped.
+ */
+class PartySpecialTrackerHistory
+{
+	static final int CAPACITY = 128;
+
+	/*sample was a drain, special went down or a fringe drain was reported*/
+	private static final int DRAIN_FLAG = 1 << 31;
+	private static final int FULL_SPECIAL = 100;
+
+	private final int[] ticks = new int[CAPACITY];
+	private final int[] samples = new int[CAPACITY];
+	/*index the next sample is written to*/
+	private int head;
+	private int size;
+
+	/**
+	 * Add a sample
+	 * @param tick Local game tick the sample was received on
+	 * @param special Special after the update
+	 * @param drained Whether special was used
+	 */
+	synchronized void Append(int tick, int special, boolean drained)
+	{
+		DropEarlierSession(tick);
+		ticks[head] = tick;
+		samples[head] = drained ? (special | DRAIN_FLAG) : special;
+		head = (head + 1) % CAPACITY;
+		if (size < CAPACITY)
+		{
+			size++;
+		}
+	}
+
+	/**
+	 * Number of times special was used from the given tick onwards
+	 * @param fromTick First tick to include
+	 * @param currentTick Current local game tick
+	 */
+	synchronized int CountDrainsSince(int fromTick, int currentTick)
+	{
+		DropEarlierSession(currentTick);
+		int count = 0;
+		for (int i = FirstIndexFrom(fromTick); i < size; i++)
+		{
+			if ((samples[Physical(i)] & DRAIN_FLAG) != 0)
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Ticks since special was last seen at 100
+	 * @param currentTick Current local game tick
+	 * @return 0 if the newest sample is a full bar, -1 if a full bar isn't within the history
+	 */
+	synchronized int TicksSinceFullSpecial(int currentTick)
+	{
+		DropEarlierSession(currentTick);
+		for (int i = size - 1; i >= 0; i--)
+		{
+			int physical = Physical(i);
+			if ((samples[physical] & ~DRAIN_FLAG) >= FULL_SPECIAL)
+			{
+				//special is still full until a newer sample says otherwise
+				return i == size - 1 ? 0 : currentTick - ticks[physical];
+			}
+		}
+		return -1;
+	}
+
+	synchronized int Size()
+	{
+		return size;
+	}
+
+	synchronized void Clear()
+	{
+		head = 0;
+		size = 0;
+	}
+
+	/**
+	 * Clear the samples if the newest is ahead of the tick, the local tick count has restarted since they were taken
+	 */
+	private void DropEarlierSession(int tick)
+	{
+		if (size > 0 && ticks[Physical(size - 1)] > tick)
+		{
+			Clear();
+		}
+	}
+
+	/**
+	 * Logical index of the oldest sample at or after a tick, size if there is none
+	 */
+	private int FirstIndexFrom(int fromTick)
+	{
+		int low = 0;
+		int high = size;
+		while (low < high)
+		{
+			int mid = (low + high) >>> 1;
+			if (ticks[Physical(mid)] < fromTick)
+			{
+				low = mid + 1;
+			}
+			else
+			{
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Convert a logical index, 0 being the oldest sample, to an array index
+	 */
+	private int Physical(int logical)
+	{
+		return (head - size + logical + CAPACITY) % CAPACITY;
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free multi-producer single-consumer queue of inbound party events.<br>
+ * Any thread may offer, only the client thread polls. Each slot carries a sequence number so producers claim slots with a single CAS and the consumer never locks.<br>
+ * Events that must not be lost go to an unbounded overflow once the ring is full. Frequent per-member events that don't fit
+ * can be kept in a separate lane holding only the latest event of each member, polled after the ring.
+ */
+class PartySpecialTrackerInbox
+{
+	private final int capacity;
+	private final int mask;
+	private final AtomicReferenceArray<Object> events;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	/*consumer only*/
+	private long head;
+
+	/*control events that arrived while the ring was full, polled after the ring*/
+	private final Queue<Object> overflow = new ConcurrentLinkedQueue<>();
+
+	/*latest event of each member that didn't fit the ring, keyed by memberId*/
+	private final Map<Long, Object> latest = new ConcurrentHashMap<>();
+
+	/**
+	 * @param capacity Rounded up to a power of two
+	 */
+	PartySpecialTrackerInbox(int capacity)
+	{
+		this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.mask = this.capacity - 1;
+		events = new AtomicReferenceArray<>(this.capacity);
+		sequences = new AtomicLongArray(this.capacity);
+		for (int i = 0; i < this.capacity; i++)
+		{
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Queue an event, safe from any thread
+	 * @return false if the queue is full and the event was not queued
+	 */
+	boolean Offer(Object event)
+	{
+		long position;
+		int slot;
+		while (true)
+		{
+			position = tail.get();
+			slot = (int) (position & mask);
+			long available = sequences.get(slot) - position;
+			if (available == 0)
+			{
+				if (tail.compareAndSet(position, position + 1))
+				{
+					break;
+				}
+			}
+			else if (available < 0)
+			{
+				//consumer hasn't freed the slot from the previous lap yet
+				return false;
+			}
+		}
+
+		events.lazySet(slot, event);
+		sequences.lazySet(slot, position + 1);
+		return true;
+	}
+
+	/**
+	 * Queue an event that must not be dropped, safe from any thread.<br>
+	 * Once the ring is full the event waits in the overflow and is polled after the ring.
+	 */
+	void OfferControl(Object event)
+	{
+		if (!Offer(event))
+		{
+			overflow.add(event);
+		}
+	}
+
+	/**
+	 * Replace the pending event of a member, safe from any thread
+	 * @param merge Combines the pending event with the newer one
+	 */
+	void OfferLatest(long memberId, Object event, BiFunction<Object, Object, Object> merge)
+	{
+		latest.merge(memberId, event, merge);
+	}
+
+	/**
+	 * Drop the pending event of a member, safe from any thread
+	 */
+	void DiscardLatest(long memberId)
+	{
+		latest.remove(memberId);
+	}
+
+	/**
+	 * Drop the pending events of every member, safe from any thread
+	 */
+	void DiscardLatest()
+	{
+		latest.clear();
+	}
+
+	/**
+	 * Take the pending event of every member, consumer thread only
+	 */
+	void DrainLatest(Consumer<Object> consumer)
+	{
+		for (Long memberId : latest.keySet())
+		{
+			Object event = latest.remove(memberId);
+			if (event != null)
+			{
+				consumer.accept(event);
+			}
+		}
+	}
+
+	/**
+	 * Take the oldest event, consumer thread only
+	 * @return null if empty
+	 */
+	Object Poll()
+	{
+		int slot = (int) (head & mask);
+		if (sequences.get(slot) != head + 1)
+		{
+			return overflow.poll();
+		}
+
+		Object event = events.get(slot);
+		events.lazySet(slot, null);
+		sequences.lazySet(slot, head + capacity);
+		head++;
+		return event;
+	}
+
+	/**
+	 * Discard queued events, consumer thread only
+	 */
+	void Clear()
+	{
+		while (Poll() != null)
+		{
+			//discard
+		}
+		latest.clear();
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Value;
+import net.runelite.client.ui.FontManager;
+
+/**
+ * Bounded cache of pre-rendered label images.<br>
+ * Labels only change when a members special, tick count or the cached configs change, the text is laid out once per state and blitted every frame after.
+ */
+class PartySpecialTrackerLabelCache
+{
+	private static final int MAX_SPRITES = 256;
+
+	@Value
+	static class Sprite
+	{
+		BufferedImage image;
+		/*width of the name/special portion, the tick portion is drawn directly after it*/
+		int labelWidth;
+		int ascent;
+	}
+
+	private final Map<String, Sprite> sprites = new LinkedHashMap<String, Sprite>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Sprite> eldest)
+		{
+			return size() > MAX_SPRITES;
+		}
+	};
+
+	private Font font;
+	private FontMetrics fontMetrics;
+	private int fontSize = -1;
+	private boolean boldFont;
+
+	/**
+	 * Get the overlay font, only rebuilt when the font configs change.<br>
+	 * Changing font invalidates every cached sprite.
+	 */
+	Font GetFont(int size, boolean bold)
+	{
+		if (font == null || size != fontSize || bold != boldFont)
+		{
+			font = new Font(FontManager.getRunescapeFont().toString(), bold ? Font.BOLD : Font.PLAIN, size);
+			fontSize = size;
+			boldFont = bold;
+			fontMetrics = null;
+			sprites.clear();
+		}
+		return font;
+	}
+
+	/**
+	 * Get or create the sprite for a given label state
+	 * @param graphics Overlay graphics, used for font metrics and rendering hints
+	 * @param labelText Name and/or special text
+	 * @param tickText Ticks since drain text, empty if not tracking
+	 * @param color Color of the label text
+	 */
+	Sprite Get(Graphics2D graphics, String labelText, String tickText, Color color)
+	{
+		String key = labelText + '\0' + tickText + '\0' + color.getRGB();
+		Sprite sprite = sprites.get(key);
+		if (sprite == null)
+		{
+			sprite = Create(graphics, labelText, tickText, color);
+			sprites.put(key, sprite);
+		}
+		return sprite;
+	}
+
+	void Clear()
+	{
+		sprites.clear();
+	}
+
+	private Sprite Create(Graphics2D graphics, String labelText, String tickText, Color color)
+	{
+		if (fontMetrics == null)
+		{
+			fontMetrics = graphics.getFontMetrics(font);
+		}
+		FontMetrics fm = fontMetrics;
+		int labelWidth = fm.stringWidth(labelText);
+		int ascent = fm.getAscent();
+
+		//+1 on each axis to fit the shadow
+		int width = Math.max(1, labelWidth + fm.stringWidth(tickText) + 1);
+		int height = ascent + fm.getDescent() + 1;
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		Object textAntialiasing = graphics.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+		if (textAntialiasing != null)
+		{
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, textAntialiasing);
+		}
+		g.setFont(font);
+
+		g.setColor(Color.BLACK);
+		g.drawString(labelText, 1, ascent + 1);
+		g.setColor(color);
+		g.drawString(labelText, 0, ascent);
+
+		g.setColor(Color.BLACK);
+		g.drawString(tickText, labelWidth + 1, ascent + 1);
+		g.setColor(Color.YELLOW);
+		g.drawString(tickText, labelWidth, ascent);
+		g.dispose();
+
+		return new Sprite(image, labelWidth, ascent);
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.util.Arrays;
+
+/**
+ * Per-frame occupancy of the viewport in fixed size cells, used to move labels off of labels already drawn.<br>
+ * A label only checks the cells it covers, so placing one costs the same however many labels are on screen.
+ * Cleared in O(1) between frames by bumping a generation stamp.
+ */
+class PartySpecialTrackerLabelGrid
+{
+	static final int CELL_SIZE = 8;
+
+	/*positions tried above the original before a label is left overlapping*/
+	static final int MAX_ATTEMPTS = 4;
+
+	private int[] stamps = new int[0];
+	private int stamp = 1;
+	private int originX;
+	private int originY;
+	private int columns;
+	private int rows;
+
+	/**
+	 * Forget every label and cover a new viewport, storage is kept for the next frame.
+	 */
+	void Clear(int left, int top, int width, int height)
+	{
+		originX = left;
+		originY = top;
+		columns = Math.max(1, (width + CELL_SIZE - 1) / CELL_SIZE);
+		rows = Math.max(1, (height + CELL_SIZE - 1) / CELL_SIZE);
+
+		if (stamps.length < columns * rows)
+		{
+			stamps = new int[columns * rows];
+			stamp = 1;
+			return;
+		}
+
+		if (++stamp == 0)
+		{
+			//generation wrapped, old cells could appear occupied again
+			Arrays.fill(stamps, 0);
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Find a free spot for a label, moving it up until it clears the cells it covered, and occupy it.
+	 * @return The top of the label, unchanged if no free spot was found within {@link #MAX_ATTEMPTS}
+	 */
+	int Place(int x, int top, int width, int height)
+	{
+		int candidate = top;
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++)
+		{
+			if (IsFree(x, candidate, width, height))
+			{
+				Occupy(x, candidate, width, height);
+				return candidate;
+			}
+			//bottom of the moved label lands in the row above the top row it covered
+			candidate = originY + Row(candidate) * CELL_SIZE - height;
+		}
+		Occupy(x, top, width, height);
+		return top;
+	}
+
+	private boolean IsFree(int x, int top, int width, int height)
+	{
+		int left = Column(x);
+		int right = Column(x + width - 1);
+		int upper = Row(top);
+		int lower = Row(top + height - 1);
+		for (int row = Math.max(0, upper); row <= Math.min(rows - 1, lower); row++)
+		{
+			int offset = row * columns;
+			for (int column = Math.max(0, left); column <= Math.min(columns - 1, right); column++)
+			{
+				if (stamps[offset + column] == stamp)
+				{
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private void Occupy(int x, int top, int width, int height)
+	{
+		int left = Column(x);
+		int right = Column(x + width - 1);
+		int upper = Row(top);
+		int lower = Row(top + height - 1);
+		for (int row = Math.max(0, upper); row <= Math.min(rows - 1, lower); row++)
+		{
+			int offset = row * columns;
+			for (int column = Math.max(0, left); column <= Math.min(columns - 1, right); column++)
+			{
+				stamps[offset + column] = stamp;
+			}
+		}
+	}
+
+	private int Column(int x)
+	{
+		return Math.floorDiv(x - originX, CELL_SIZE);
+	}
+
+	private int Row(int y)
+	{
+		return Math.floorDiv(y - originY, CELL_SIZE);
+	}
+}
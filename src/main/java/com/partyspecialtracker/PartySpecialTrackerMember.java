@@ -25,42 +25,143 @@
 package com.partyspecialtracker;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
 
-@RequiredArgsConstructor
 @Getter
 @Setter
 class PartySpecialTrackerMember
 {
-    private final String name;
-    private long memberID;
-    private int currentSpecial;
-    private int ticksSinceDrain;
+    /*special regenerates 10% every 50 ticks*/
+    static final int REGEN_AMOUNT = 10;
+    static final int REGEN_INTERVAL = 50;
+    static final int MAX_SPECIAL = 100;
 
-    public PartySpecialTrackerMember(String name, long memberID, int currentSpecial){
+    private String name;
+
+    /*memberID, currentSpecial, ticksSinceDrain and lastSeen live in the store for the per-tick loops*/
+    private final PartySpecialTrackerMemberStore store;
+    /*-1 once the member has been removed*/
+    private int slot;
+
+    /*local tick currentSpecial was last confirmed by a packet*/
+    private int confirmedTick = -1;
+    /*local tick a regeneration step was last seen on, -1 until one has been seen*/
+    private int regenTick = -1;
+
+    /*special samples over the session, for timeline queries*/
+    private final PartySpecialTrackerHistory history = new PartySpecialTrackerHistory();
+
+    /*sequence of the last applied fringe packet from the current memberId, older and duplicate packets are dropped*/
+    private int lastFringeSequence = -1;
+
+    /*special bucket of the member in PartySpecialTrackerAggregates, -1 while not counted*/
+    private int aggregateSpecial = -1;
+    private PartySpecialTrackerMember aggregatePrev;
+    private PartySpecialTrackerMember aggregateNext;
+
+    /*render state published for this member in the latest snapshot*/
+    private PartySpecialTrackerSnapshot.Entry renderEntry;
+
+    public PartySpecialTrackerMember(PartySpecialTrackerMemberStore store, String name, long memberID, int currentSpecial){
+        this.store = store;
         this.name = name;
-        this.memberID = memberID;
-        this.currentSpecial = currentSpecial;
-        this.ticksSinceDrain = -1;
+        this.slot = store.Allocate(this, memberID, currentSpecial);
     }
 
-    public int IncrementTicksSinceDrain(int maxTicks){
-        //increment count, disable after an additional lingering tick for fadeout purposes.
-        if(++this.ticksSinceDrain > (maxTicks+1)){
-            this.ticksSinceDrain = -1;
+    public long getMemberID(){
+        return store.getMemberId(slot);
+    }
+
+    public void setMemberID(long memberID){
+        if(memberID != store.getMemberId(slot)){
+            //new memberId is a new session of the sender, its sequence starts over
+            lastFringeSequence = -1;
         }
-        return ticksSinceDrain;
+        store.setMemberId(slot, memberID);
+    }
+
+    public int getCurrentSpecial(){
+        return store.getSpecial(slot);
+    }
+
+    public int getTicksSinceDrain(){
+        return store.getTicksSinceDrain(slot);
+    }
+
+    /**
+     * Time in millis the member was last updated or seen in the scene, used for eviction
+     */
+    public long getLastSeen(){
+        return store.getLastSeen(slot);
+    }
+
+    public void setLastSeen(long lastSeen){
+        store.setLastSeen(slot, lastSeen);
     }
 
     public boolean IsTrackingDrain(){
-        return ticksSinceDrain != -1;
+        return getTicksSinceDrain() != -1;
     }
 
+    /**
+     * Drain timers are advanced by {@link PartySpecialTrackerMemberStore#IncrementDrainTimers(int)}
+     */
     public void StartTrackingDrain(){
-        ticksSinceDrain = 1;
+        store.setTicksSinceDrain(slot, 1);
+    }
+
+    /**
+     * Set special from a packet, an exact regeneration step also re-syncs the regeneration timer
+     * @param special Special from the packet
+     * @param tick Local tick the packet was received on
+     * @param observeRegen Whether an increase can be treated as regeneration
+     */
+    public void ConfirmSpecial(int special, int tick, boolean observeRegen){
+        if(observeRegen && confirmedTick != -1 && special == getCurrentSpecial() + REGEN_AMOUNT){
+            regenTick = tick;
+        }
+        store.setSpecial(slot, special);
+        confirmedTick = tick;
+    }
+
+    /**
+     * Extrapolate special from the last confirmed value using the observed regeneration timer
+     * @param tick Current local tick
+     * @return The confirmed special if no regeneration has been observed yet
+     */
+    public int PredictSpecial(int tick){
+        int currentSpecial = getCurrentSpecial();
+        if(regenTick == -1 || confirmedTick == -1 || currentSpecial >= MAX_SPECIAL){
+            return currentSpecial;
+        }
+        //regeneration steps fall on regenTick + n * interval, count those after the confirmed tick
+        int steps = Math.floorDiv(tick - regenTick, REGEN_INTERVAL) - Math.floorDiv(confirmedTick - regenTick, REGEN_INTERVAL);
+        if(steps <= 0){
+            return currentSpecial;
+        }
+        return Math.min(MAX_SPECIAL, currentSpecial + steps * REGEN_AMOUNT);
+    }
+
+    /**
+     * Stop extrapolating until a packet confirms the special again, special doesn't regenerate while logged out
+     */
+    public void ResetPrediction(){
+        confirmedTick = -1;
+        regenTick = -1;
+    }
+
+    /**
+     * Check a fringe packet is newer than the last applied one and record it if so
+     * @param sequence Senders packet sequence, counted per session of the sender
+     */
+    public boolean AcceptFringeUpdate(int sequence){
+        if(sequence <= lastFringeSequence){
+            return false;
+        }
+        lastFringeSequence = sequence;
+        return true;
     }
 
 
-}
\ No newline at end of file
+}
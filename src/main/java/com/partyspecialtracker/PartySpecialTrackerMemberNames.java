@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import lombok.Value;
+
+/**
+ * Party name and login state of each memberId, as last announced by their status updates.<br>
+ * Saves asking the party service for every packet, entries are dropped when the member leaves or the party changes.
+ */
+class PartySpecialTrackerMemberNames
+{
+	@Value
+	static class Entry
+	{
+		/*null if the party service had no name yet*/
+		String name;
+		boolean loggedIn;
+	}
+
+	private final Map<Long, Entry> entries = new HashMap<>();
+
+	Entry Get(long memberId)
+	{
+		return entries.get(memberId);
+	}
+
+	/**
+	 * Record the name of a member, the entry is only replaced when something has changed
+	 */
+	Entry Put(long memberId, String name, boolean loggedIn)
+	{
+		Entry entry = entries.get(memberId);
+		if (entry == null || entry.isLoggedIn() != loggedIn || !Objects.equals(entry.getName(), name))
+		{
+			entry = new Entry(name, loggedIn);
+			entries.put(memberId, entry);
+		}
+		return entry;
+	}
+
+	void Remove(long memberId)
+	{
+		entries.remove(memberId);
+	}
+
+	void Clear()
+	{
+		entries.clear();
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Tracked party members indexed by party memberId with a secondary index on sanitized name.<br>
+ * Writes keep both indexes consistent under one lock, name lookups and iteration are lock-free.
+ * Members dropped by {@link #RemoveById} or displaced by a rename are passed to the removal listener, {@link #Clear} is not.
+ * Per-tick member state is kept in the {@link PartySpecialTrackerMemberStore}, slots are released as members are removed.
+ */
+class PartySpecialTrackerMemberRegistry
+{
+	private static final int INITIAL_CAPACITY = 16;
+
+	/*primary index, open addressing on memberId with linear probing*/
+	private long[] ids = new long[INITIAL_CAPACITY];
+	private PartySpecialTrackerMember[] slots = new PartySpecialTrackerMember[INITIAL_CAPACITY];
+	private int size;
+
+	/*secondary index*/
+	private final Map<String, PartySpecialTrackerMember> byName = new ConcurrentHashMap<>();
+
+	private final Consumer<PartySpecialTrackerMember> removalListener;
+
+	private final PartySpecialTrackerMemberStore store = new PartySpecialTrackerMemberStore();
+
+	PartySpecialTrackerMemberRegistry(Consumer<PartySpecialTrackerMember> removalListener)
+	{
+		this.removalListener = removalListener;
+	}
+
+	synchronized PartySpecialTrackerMember GetById(long memberId)
+	{
+		int slot = Find(memberId);
+		return slot < 0 ? null : slots[slot];
+	}
+
+	PartySpecialTrackerMember GetByName(String name)
+	{
+		return byName.get(name);
+	}
+
+	boolean ContainsName(String name)
+	{
+		return byName.containsKey(name);
+	}
+
+	Collection<PartySpecialTrackerMember> Values()
+	{
+		return byName.values();
+	}
+
+	int Size()
+	{
+		return byName.size();
+	}
+
+	/**
+	 * Slots of the members, only for the client thread
+	 */
+	PartySpecialTrackerMemberStore getStore()
+	{
+		return store;
+	}
+
+	/**
+	 * Get or create the member for a memberId, re-keying it if the memberId or name has changed.
+	 * @param name Sanitized name
+	 * @param memberId Party memberId
+	 * @param special Special to create the member with, existing members are left untouched
+	 */
+	synchronized PartySpecialTrackerMember Update(String name, long memberId, int special)
+	{
+		int slot = Find(memberId);
+		PartySpecialTrackerMember member = slot < 0 ? null : slots[slot];
+
+		if (member == null)
+		{
+			//same name rejoining under a new memberId keeps its state
+			member = byName.get(name);
+			if (member != null)
+			{
+				RemoveId(member.getMemberID());
+				member.setMemberID(memberId);
+			}
+			else
+			{
+				member = new PartySpecialTrackerMember(store, name, memberId, special);
+				byName.put(name, member);
+			}
+			PutId(memberId, member);
+		}
+
+		if (!member.getName().equals(name))
+		{
+			//renamed, move the name index in place rather than leaving the old name behind
+			byName.remove(member.getName(), member);
+			PartySpecialTrackerMember displaced = byName.put(name, member);
+			if (displaced != null && displaced != member)
+			{
+				RemoveId(displaced.getMemberID());
+				removalListener.accept(displaced);
+				Release(displaced);
+			}
+			member.setName(name);
+		}
+
+		return member;
+	}
+
+	synchronized PartySpecialTrackerMember RemoveById(long memberId)
+	{
+		PartySpecialTrackerMember member = RemoveId(memberId);
+		if (member != null)
+		{
+			byName.remove(member.getName(), member);
+			removalListener.accept(member);
+			Release(member);
+		}
+		return member;
+	}
+
+	synchronized void Clear()
+	{
+		ids = new long[INITIAL_CAPACITY];
+		slots = new PartySpecialTrackerMember[INITIAL_CAPACITY];
+		size = 0;
+		byName.clear();
+		store.Clear();
+	}
+
+	private void Release(PartySpecialTrackerMember member)
+	{
+		store.Release(member.getSlot());
+		member.setSlot(-1);
+	}
+
+	private static int Hash(long key)
+	{
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private int Find(long memberId)
+	{
+		int mask = ids.length - 1;
+		int slot = Hash(memberId) & mask;
+		while (slots[slot] != null)
+		{
+			if (ids[slot] == memberId)
+			{
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void PutId(long memberId, PartySpecialTrackerMember member)
+	{
+		if ((size + 1) * 2 > ids.length)
+		{
+			Grow();
+		}
+
+		int mask = ids.length - 1;
+		int slot = Hash(memberId) & mask;
+		while (slots[slot] != null && ids[slot] != memberId)
+		{
+			slot = (slot + 1) & mask;
+		}
+		if (slots[slot] == null)
+		{
+			size++;
+		}
+		ids[slot] = memberId;
+		slots[slot] = member;
+	}
+
+	private PartySpecialTrackerMember RemoveId(long memberId)
+	{
+		int slot = Find(memberId);
+		if (slot < 0)
+		{
+			return null;
+		}
+
+		PartySpecialTrackerMember removed = slots[slot];
+		slots[slot] = null;
+		size--;
+
+		//shift following entries back so probing never stops early on the freed slot
+		int mask = ids.length - 1;
+		int next = (slot + 1) & mask;
+		while (slots[next] != null)
+		{
+			int home = Hash(ids[next]) & mask;
+			if (((next - home) & mask) >= ((next - slot) & mask))
+			{
+				ids[slot] = ids[next];
+				slots[slot] = slots[next];
+				slots[next] = null;
+				slot = next;
+			}
+			next = (next + 1) & mask;
+		}
+		return removed;
+	}
+
+	private void Grow()
+	{
+		long[] oldIds = ids;
+		PartySpecialTrackerMember[] oldSlots = slots;
+		ids = new long[oldIds.length * 2];
+		slots = new PartySpecialTrackerMember[oldIds.length * 2];
+		size = 0;
+		for (int i = 0; i < oldIds.length; i++)
+		{
+			if (oldSlots[i] != null)
+			{
+				PutId(oldIds[i], oldSlots[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.util.Arrays;
+
+/**
+ * Per-tick state of every member in parallel primitive arrays, indexed by a slot the member keeps for its lifetime.<br>
+ * Eviction walks the arrays front to back instead of visiting member objects across the heap,
+ * drain timers only walk the dense list of slots with a running timer.
+ * Freed slots are reused before the arrays grow, so slots stay dense.
+ */
+class PartySpecialTrackerMemberStore
+{
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] memberIds = new long[INITIAL_CAPACITY];
+	private int[] specials = new int[INITIAL_CAPACITY];
+	/*-1 while no drain timer is running, also for free slots*/
+	private int[] ticksSinceDrain = new int[INITIAL_CAPACITY];
+	/*Long.MAX_VALUE for free slots so they are never the oldest*/
+	private long[] lastSeen = new long[INITIAL_CAPACITY];
+	private PartySpecialTrackerMember[] members = new PartySpecialTrackerMember[INITIAL_CAPACITY];
+
+	/*slots with a running drain timer, unordered and swap-removed*/
+	private int[] active = new int[INITIAL_CAPACITY];
+	private int activeCount;
+	/*position of each slot in active, -1 while its timer isn't running*/
+	private int[] activeIndex = new int[INITIAL_CAPACITY];
+
+	private int[] free = new int[INITIAL_CAPACITY];
+	private int freeCount;
+	/*slots at or above are unused*/
+	private int highWater;
+
+	/**
+	 * Give a member a slot
+	 * @return The slot, valid until {@link #Release(int)}
+	 */
+	int Allocate(PartySpecialTrackerMember member, long memberId, int special)
+	{
+		int slot;
+		if (freeCount > 0)
+		{
+			slot = free[--freeCount];
+		}
+		else
+		{
+			if (highWater == members.length)
+			{
+				Grow();
+			}
+			slot = highWater++;
+		}
+
+		memberIds[slot] = memberId;
+		specials[slot] = special;
+		ticksSinceDrain[slot] = -1;
+		activeIndex[slot] = -1;
+		lastSeen[slot] = 0;
+		members[slot] = member;
+		return slot;
+	}
+
+	void Release(int slot)
+	{
+		members[slot] = null;
+		setTicksSinceDrain(slot, -1);
+		lastSeen[slot] = Long.MAX_VALUE;
+		free[freeCount++] = slot;
+	}
+
+	void Clear()
+	{
+		Arrays.fill(members, 0, highWater, null);
+		highWater = 0;
+		freeCount = 0;
+		activeCount = 0;
+	}
+
+	/**
+	 * Advance every running drain timer, timers stop after an additional lingering tick for fadeout purposes.
+	 * @return The number of timers still running
+	 */
+	int IncrementDrainTimers(int maxTicks)
+	{
+		//backwards so a swap-removed timer is replaced by one already advanced
+		for (int i = activeCount - 1; i >= 0; i--)
+		{
+			int slot = active[i];
+			int value = ticksSinceDrain[slot] + 1;
+			if (value > maxTicks + 1)
+			{
+				Deactivate(slot);
+				value = -1;
+			}
+			ticksSinceDrain[slot] = value;
+		}
+		return activeCount;
+	}
+
+	/**
+	 * Slot with the lowest last seen time, -1 without members
+	 */
+	int FindOldest()
+	{
+		int oldest = -1;
+		long oldestSeen = Long.MAX_VALUE;
+		for (int slot = 0; slot < highWater; slot++)
+		{
+			if (lastSeen[slot] < oldestSeen)
+			{
+				oldestSeen = lastSeen[slot];
+				oldest = slot;
+			}
+		}
+		return oldest;
+	}
+
+	/*slots up to highWater, free slots return a null member*/
+	int getHighWater()
+	{
+		return highWater;
+	}
+
+	PartySpecialTrackerMember getMember(int slot)
+	{
+		return members[slot];
+	}
+
+	long getMemberId(int slot)
+	{
+		return memberIds[slot];
+	}
+
+	void setMemberId(int slot, long memberId)
+	{
+		memberIds[slot] = memberId;
+	}
+
+	int getSpecial(int slot)
+	{
+		return specials[slot];
+	}
+
+	void setSpecial(int slot, int special)
+	{
+		specials[slot] = special;
+	}
+
+	int getTicksSinceDrain(int slot)
+	{
+		return ticksSinceDrain[slot];
+	}
+
+	void setTicksSinceDrain(int slot, int ticks)
+	{
+		if (ticks == -1)
+		{
+			Deactivate(slot);
+		}
+		else if (activeIndex[slot] == -1)
+		{
+			activeIndex[slot] = activeCount;
+			active[activeCount++] = slot;
+		}
+		ticksSinceDrain[slot] = ticks;
+	}
+
+	long getLastSeen(int slot)
+	{
+		return lastSeen[slot];
+	}
+
+	void setLastSeen(int slot, long time)
+	{
+		lastSeen[slot] = time;
+	}
+
+	private void Deactivate(int slot)
+	{
+		int index = activeIndex[slot];
+		if (index == -1)
+		{
+			return;
+		}
+		int last = active[--activeCount];
+		active[index] = last;
+		activeIndex[last] = index;
+		activeIndex[slot] = -1;
+	}
+
+	private void Grow()
+	{
+		int capacity = members.length * 2;
+		memberIds = Arrays.copyOf(memberIds, capacity);
+		specials = Arrays.copyOf(specials, capacity);
+		ticksSinceDrain = Arrays.copyOf(ticksSinceDrain, capacity);
+		lastSeen = Arrays.copyOf(lastSeen, capacity);
+		members = Arrays.copyOf(members, capacity);
+		active = Arrays.copyOf(active, capacity);
+		activeIndex = Arrays.copyOf(activeIndex, capacity);
+		free = Arrays.copyOf(free, capacity);
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Latency histograms and event rates of the plugins hot paths.<br>
+ * Fixed power-of-two buckets, recording does not allocate and is skipped entirely while disabled.
+ */
+class PartySpecialTrackerMetrics
+{
+	@RequiredArgsConstructor
+	@Getter
+	enum Probe
+	{
+		STATUS_UPDATE("onStatusUpdate"),
+		APPLY_STATUS_UPDATE("ApplyStatusUpdate"),
+		UPDATE_MEMBER("UpdateMember"),
+		GAME_TICK("onGameTick"),
+		VARBIT_CHANGED("onVarbitChanged"),
+		RENDER("render");
+
+		private final String displayName;
+	}
+
+	/**
+	 * Histogram of nanosecond latencies, bucket i counts samples in [2^i, 2^(i+1)).<br>
+	 * Samples are recorded into the current interval, percentiles, max and rate are read from the last interval closed by {@link #Roll(long)}.
+	 */
+	static final class Histogram
+	{
+		private static final int BUCKETS = 40;
+
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+		private final AtomicLong max = new AtomicLong();
+
+		/*last rolled interval, written by Roll only*/
+		private final long[] rolledBuckets = new long[BUCKETS];
+		private long rolledCount;
+		private long rolledMax;
+		private long rolledNanos;
+
+		/*events per second over the last rolled interval*/
+		@Getter
+		private volatile double rate;
+
+		void Record(long nanos)
+		{
+			int bucket = nanos <= 1 ? 0 : Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos));
+			buckets.incrementAndGet(bucket);
+			long current;
+			while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos))
+			{
+				//retry until max holds the larger value
+			}
+		}
+
+		/**
+		 * Upper bound of the bucket holding the given quantile of the last interval
+		 * @param quantile 0 to 1
+		 */
+		long Percentile(double quantile)
+		{
+			if (rolledCount == 0)
+			{
+				return 0;
+			}
+
+			long target = Math.max(1, (long) Math.ceil(rolledCount * quantile));
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				seen += rolledBuckets[i];
+				if (seen >= target)
+				{
+					return 1L << (i + 1);
+				}
+			}
+			return rolledMax;
+		}
+
+		long Max()
+		{
+			return rolledMax;
+		}
+
+		long Count()
+		{
+			return rolledCount;
+		}
+
+		/**
+		 * Close the current interval, its samples replace those of the previous one
+		 * @param now {@link System#nanoTime()}
+		 */
+		void Roll(long now)
+		{
+			long total = 0;
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				rolledBuckets[i] = buckets.getAndSet(i, 0);
+				total += rolledBuckets[i];
+			}
+			rolledCount = total;
+			rolledMax = max.getAndSet(0);
+			rate = rolledNanos != 0 && now > rolledNanos ? total * 1_000_000_000d / (now - rolledNanos) : 0;
+			rolledNanos = now;
+		}
+
+		void Reset()
+		{
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				buckets.set(i, 0);
+				rolledBuckets[i] = 0;
+			}
+			max.set(0);
+			rolledCount = 0;
+			rolledMax = 0;
+			rolledNanos = 0;
+			rate = 0;
+		}
+	}
+
+	private final Histogram[] histograms = new Histogram[Probe.values().length];
+
+	@Getter
+	@Setter
+	private volatile boolean enabled;
+
+	PartySpecialTrackerMetrics()
+	{
+		for (int i = 0; i < histograms.length; i++)
+		{
+			histograms[i] = new Histogram();
+		}
+	}
+
+	/**
+	 * Start timing a probe
+	 * @return Start time to pass to {@link #Record(Probe, long)}, 0 while disabled
+	 */
+	long Start()
+	{
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Record the latency of a probe started with {@link #Start()}
+	 */
+	void Record(Probe probe, long start)
+	{
+		if (start == 0)
+		{
+			return;
+		}
+		histograms[probe.ordinal()].Record(System.nanoTime() - start);
+	}
+
+	Histogram Get(Probe probe)
+	{
+		return histograms[probe.ordinal()];
+	}
+
+	/**
+	 * Close the current interval of every probe, see {@link Histogram#Roll(long)}
+	 */
+	void Roll()
+	{
+		long now = System.nanoTime();
+		for (Histogram histogram : histograms)
+		{
+			histogram.Roll(now);
+		}
+	}
+
+	void Reset()
+	{
+		for (Histogram histogram : histograms)
+		{
+			histogram.Reset();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Value;
+import net.runelite.client.util.Text;
+
+/**
+ * Bounded LRUs of raw names to their display and sanitized forms, and of sanitized names to their lowercase form.<br>
+ * Player names are the same String instances frame to frame, so lookups short-circuit on identity and a steady state makes no new strings.
+ */
+class PartySpecialTrackerNameCache
+{
+	private static final int MAX_NAMES = 512;
+
+	@Value
+	static class Name
+	{
+		String raw;
+		/*tags removed, as shown in game*/
+		String display;
+		String sanitized;
+	}
+
+	private final Map<String, Name> names = new LinkedHashMap<String, Name>(64, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Name> eldest)
+		{
+			return size() > MAX_NAMES;
+		}
+	};
+
+	/*sanitized names to lowercase, apart from the raw names so a name isn't cached a second time under its sanitized form*/
+	private final Map<String, String> lowercase = new LinkedHashMap<String, String>(64, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest)
+		{
+			return size() > MAX_NAMES;
+		}
+	};
+
+	/**
+	 * Get the cached forms of a name, computing them on first use.
+	 */
+	synchronized Name Get(String raw)
+	{
+		Name name = names.get(raw);
+		if (name == null)
+		{
+			name = new Name(raw, Text.removeTags(raw).intern(), Text.removeTags(Text.toJagexName(raw)).intern());
+			names.put(raw, name);
+		}
+		return name;
+	}
+
+	/**
+	 * Remove tags and convert to Jagex name
+	 */
+	String Sanitize(String raw)
+	{
+		return Get(raw).getSanitized();
+	}
+
+	/**
+	 * Lowercase form of an already sanitized name
+	 */
+	synchronized String Lowercase(String sanitized)
+	{
+		String lower = lowercase.get(sanitized);
+		if (lower == null)
+		{
+			lower = sanitized.toLowerCase().intern();
+			lowercase.put(sanitized, lower);
+		}
+		return lower;
+	}
+
+	/**
+	 * Drop a name that is no longer in use, such as after a player has changed name
+	 */
+	synchronized void Invalidate(String raw)
+	{
+		Name name = names.remove(raw);
+		if (name != null)
+		{
+			lowercase.remove(name.getSanitized());
+		}
+	}
+
+	synchronized void Clear()
+	{
+		names.clear();
+		lowercase.clear();
+	}
+}
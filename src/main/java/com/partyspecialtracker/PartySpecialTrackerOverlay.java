@@ -25,24 +25,68 @@
 package com.partyspecialtracker;
 
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.image.BufferedImage;
 import javax.inject.Inject;
 
 import net.runelite.api.*;
 import net.runelite.api.Point;
-import net.runelite.api.coords.WorldPoint;
-import net.runelite.client.ui.FontManager;
+import net.runelite.api.coords.LocalPoint;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
-import net.runelite.client.util.ColorUtil;
-import net.runelite.client.util.Text;
 
 public class PartySpecialTrackerOverlay extends Overlay
 {
     private final Client client;
     private final PartySpecialTrackerPlugin plugin;
+    private final PartySpecialTrackerLabelCache labelCache = new PartySpecialTrackerLabelCache();
+    private final PartySpecialTrackerTileIndex tileIndex = new PartySpecialTrackerTileIndex();
+    private final PartySpecialTrackerLabelGrid labelGrid = new PartySpecialTrackerLabelGrid();
+
+    /*layout of the previous frame, only rebuilt when the snapshot, scene players or plane change*/
+    private PartySpecialTrackerSnapshot layoutSnapshot;
+    private int layoutSceneRevision = -1;
+    private int layoutPlane = -1;
+    private int layoutSize;
+    private boolean layoutLingering;
+    private PartySpecialTrackerSnapshot.Entry[] layoutEntries = new PartySpecialTrackerSnapshot.Entry[16];
+    private Player[] layoutPlayers = new Player[16];
+    private LocalPoint[] layoutLocations = new LocalPoint[16];
+    /*packed tile of each player when stacking was last worked out, -1 if unknown*/
+    private int[] layoutTiles = new int[16];
+    private int[] layoutStacks = new int[16];
+
+    /*canvas bounds of the viewport for the current frame, labels entirely outside are not drawn*/
+    private int viewportLeft;
+    private int viewportTop;
+    private int viewportRight;
+    private int viewportBottom;
+
+    /**
+     * Distance from the viewport a label anchor can be before it is culled without rendering the label, wider than any label
+     */
+    private static final int CULL_MARGIN = 256;
+
+    /**
+     * Time each frame may spend spreading labels, labels past it are drawn where they are
+     */
+    private static final long SPREAD_BUDGET_NANOS = 500_000L;
+
+    /*nanoTime labels stop being spread this frame, 0 when not spreading*/
+    private long spreadDeadline;
+
+    /**
+     * Composite for every alpha of the lingering tick fade, {@link AlphaComposite#getInstance(int, float)} allocates on each call
+     */
+    private static final AlphaComposite[] ALPHA_COMPOSITES = new AlphaComposite[0x100];
+
+    static
+    {
+        for (int alpha = 0; alpha < ALPHA_COMPOSITES.length; alpha++)
+        {
+            ALPHA_COMPOSITES[alpha] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha / 255f);
+        }
+    }
 
     @Inject
     PartySpecialTrackerOverlay(Client client, PartySpecialTrackerPlugin plugin)
@@ -60,126 +104,225 @@ public class PartySpecialTrackerOverlay extends Overlay
     @Override
     public Dimension render(Graphics2D graphics)
     {
+        long start = plugin.getMetrics().Start();
+        renderParty(graphics);
+        plugin.getMetrics().Record(PartySpecialTrackerMetrics.Probe.RENDER, start);
+        return null;
+    }
 
-        if(plugin.trackMe && !plugin.showAsTracker)
-            return null;
+    private void renderParty(Graphics2D graphics)
+    {
 
-        graphics.setFont(new Font(FontManager.getRunescapeFont().toString(), plugin.boldFont ? Font.BOLD : Font.PLAIN, plugin.fontSize));
+        //everything but screen position comes from the snapshot of the last tick
+        PartySpecialTrackerSnapshot snapshot = plugin.getSnapshot();
+        if(!snapshot.isVisible())
+            return;
 
-        //track player locations for vertical-offsetting purposes, when players are stacked their names/hp(if rendered) should stack instead of overlapping
-        List<WorldPoint> trackedLocations = new ArrayList<>();
+        graphics.setFont(labelCache.GetFont(snapshot.getFontSize(), snapshot.isBoldFont()));
 
+        int plane = client.getPlane();
+        if(snapshot != layoutSnapshot || plugin.getSceneRevision() != layoutSceneRevision || plane != layoutPlane)
+        {
+            rebuildLayout(snapshot, plane);
+        }
 
-        for(Player player : client.getPlayers())
+        //following the last tick the tick text will linger and fade out, same fade for every lingering label this frame
+        int fadeAlpha = 0xFF;
+        if(layoutLingering)
         {
+            float tickPercentage = (client.getGameCycle() - snapshot.getGameCycle()) / 30f;
+            fadeAlpha = Math.max(0, Math.min(0xFF, (int) (255 - (255 * tickPercentage))));
+        }
 
-            if (player == null || player.getName() == null)
+        //players only need restacking once one of them has changed tile
+        //the client returns a new LocalPoint on every call, an allocation per drawn member left as actors have no other accessor for their position
+        boolean restack = false;
+        for(int i = 0; i < layoutSize; i++)
+        {
+            LocalPoint localLocation = layoutPlayers[i].getLocalLocation();
+            layoutLocations[i] = localLocation;
+            int tile = localLocation == null ? -1 : PartySpecialTrackerTileIndex.Pack(localLocation.getSceneX(), localLocation.getSceneY(), plane);
+            if(tile != layoutTiles[i])
             {
-                continue;
+                layoutTiles[i] = tile;
+                restack = true;
             }
+        }
 
-            String name = plugin.SanitizeName(player.getName());
-            if(!plugin.RenderPlayer(name))
+        if(restack)
+        {
+            //track player locations for vertical-offsetting purposes, when players are stacked their names/hp(if rendered) should stack instead of overlapping
+            tileIndex.Clear();
+            for(int i = 0; i < layoutSize; i++)
             {
-                continue;
+                layoutStacks[i] = layoutTiles[i] == -1 ? 0 : tileIndex.Add(layoutTiles[i]);
             }
+        }
 
-            PartySpecialTrackerMember member = plugin.getMembers().get(name);
+        //members beyond max distance are culled before being projected
+        int maxDistance = snapshot.getMaxDistance();
+        LocalPoint origin = null;
+        if(maxDistance > 0)
+        {
+            Player localPlayer = client.getLocalPlayer();
+            origin = localPlayer == null ? null : localPlayer.getLocalLocation();
+        }
 
-            int currentSpecial = member.getCurrentSpecial();
-            int ticksSinceDrain = member.getTicksSinceDrain();
+        viewportLeft = client.getViewportXOffset();
+        viewportTop = client.getViewportYOffset();
+        viewportRight = viewportLeft + client.getViewportWidth();
+        viewportBottom = viewportTop + client.getViewportHeight();
 
-            boolean hasDesiredSpecial = plugin.HasDesiredSpecial(currentSpecial);
-            boolean nameRendered = plugin.RenderText(plugin.nameRender,hasDesiredSpecial) || plugin.RenderText(plugin.specRender,hasDesiredSpecial);
+        spreadDeadline = 0;
+        if(snapshot.isSpreadLabels())
+        {
+            labelGrid.Clear(viewportLeft, viewportTop, viewportRight - viewportLeft, viewportBottom - viewportTop);
+            spreadDeadline = System.nanoTime() + SPREAD_BUDGET_NANOS;
+        }
 
-            if(nameRendered)
+        for(int i = 0; i < layoutSize; i++)
+        {
+            LocalPoint localLocation = layoutLocations[i];
+            if(localLocation == null)
             {
-                int playersTracked = 0;
-                WorldPoint currentLoc = player.getWorldLocation();
-                for(int i=0; i<trackedLocations.size(); i++)
-                {
-                    WorldPoint compareLoc = trackedLocations.get(i);
-                    if(compareLoc.getX() == currentLoc.getX() && compareLoc.getY() == currentLoc.getY())
-                    {
-                        playersTracked++;
-                    }
-                }
-                trackedLocations.add(player.getWorldLocation());
-                renderPlayerOverlay(graphics, player, playersTracked,currentSpecial,ticksSinceDrain,hasDesiredSpecial);
+                continue;
             }
+            if(origin != null && Math.max(Math.abs(localLocation.getSceneX() - origin.getSceneX()), Math.abs(localLocation.getSceneY() - origin.getSceneY())) > maxDistance)
+            {
+                continue;
+            }
+            PartySpecialTrackerSnapshot.Entry entry = layoutEntries[i];
+            renderPlayerOverlay(graphics, snapshot, localLocation, plane, entry, layoutStacks[i], entry.isLingeringTick() ? fadeAlpha : 0xFF);
+        }
+    }
+
+    /**
+     * Resolve the players of the snapshot entries that are currently in the scene.<br>
+     * Only needed when members, configs, scene players or plane have changed since the last frame.
+     */
+    private void rebuildLayout(PartySpecialTrackerSnapshot snapshot, int plane)
+    {
+        layoutSnapshot = snapshot;
+        layoutSceneRevision = plugin.getSceneRevision();
+        layoutPlane = plane;
+        layoutLingering = false;
 
+        PartySpecialTrackerSnapshot.Entry[] entries = snapshot.getEntries();
+        if(layoutEntries.length < entries.length)
+        {
+            int capacity = Math.max(entries.length, layoutEntries.length * 2);
+            layoutEntries = new PartySpecialTrackerSnapshot.Entry[capacity];
+            layoutPlayers = new Player[capacity];
+            layoutLocations = new LocalPoint[capacity];
+            layoutTiles = new int[capacity];
+            layoutStacks = new int[capacity];
         }
 
-        return null;
+        int size = 0;
+        for(int i = 0; i < entries.length; i++)
+        {
+            Player player = plugin.GetScenePlayer(entries[i].getName());
+            if (player == null)
+            {
+                continue;
+            }
+            layoutEntries[size] = entries[i];
+            layoutPlayers[size] = player;
+            //forces a restack on the first frame of the new layout
+            layoutTiles[size] = Integer.MIN_VALUE;
+            layoutLingering |= entries[i].isLingeringTick();
+            size++;
+        }
+
+        //release references beyond the new size
+        for(int i = size; i < layoutSize; i++)
+        {
+            layoutEntries[i] = null;
+            layoutPlayers[i] = null;
+            layoutLocations[i] = null;
+        }
+        layoutSize = size;
     }
 
     /**
-     * Calculates the display of a given party member based on current data and config values.
+     * Calculates the display of a given party member based on the current snapshot.
      * @param graphics
-     * @param actor The party member to draw visuals for
+     * @param snapshot The snapshot being rendered
+     * @param localLocation Location of the party member to draw visuals for
+     * @param plane Current plane
+     * @param entry The render state of the party member
      * @param playersTracked The number of players on the same tile of actor
-     * @param currentSpecial The current tracked special amount
-     * @param ticksSinceDrain The ticks since special drained
-     * @param hasDesiredSpecial Indicates currentSpecial Surpasses config
+     * @param tickAlpha Alpha of the ticks since drain text
      */
-    private void renderPlayerOverlay(Graphics2D graphics, Player actor, int playersTracked, int currentSpecial, int ticksSinceDrain, boolean hasDesiredSpecial)
+    private void renderPlayerOverlay(Graphics2D graphics, PartySpecialTrackerSnapshot snapshot, LocalPoint localLocation, int plane, PartySpecialTrackerSnapshot.Entry entry, int playersTracked, int tickAlpha)
     {
-        Color color = hasDesiredSpecial ? plugin.standardColor : plugin.lowColor;
-
-        String playerName = plugin.RenderText(plugin.nameRender,hasDesiredSpecial) ? Text.removeTags(actor.getName()) : "";
-        String endingPercentString = plugin.drawPercentByName ? "%" : "";
-        String startingParenthesesString = plugin.drawParentheses ? "(" : "";
-        String endingParenthesesString = plugin.drawParentheses ? ")" : "";
+        //same anchor as Actor#getCanvasTextLocation, centered on the label without re-measuring it
+        //a new Point is returned on every call, an allocation per drawn member left so the projection stays the client's own
+        Point textLocation = Perspective.localToCanvas(client, localLocation, plane, snapshot.getOffSetTextZ());
+        if(textLocation == null)
+        {
+            return;
+        }
 
-        playerName += plugin.RenderText(plugin.specRender,hasDesiredSpecial) ? " "+(startingParenthesesString+currentSpecial+endingPercentString+endingParenthesesString) : "";
-        boolean lingeringTick = (ticksSinceDrain == (plugin.tickDisplay+1));
-        String tickDisplayString = ticksSinceDrain > -1 ? " 🗲"+Math.min(ticksSinceDrain,plugin.tickDisplay)  : "";
+        float verticalOffSetMultiplier = 1f + (playersTracked * (((float)snapshot.getOffSetStackVertical())/100f));
+        int anchorX = textLocation.getX() + snapshot.getOffSetTextHorizontal();
+        int y = (-snapshot.getOffSetTextVertical())+(int) (textLocation.getY() * verticalOffSetMultiplier);
 
-        Point textLocation = actor.getCanvasTextLocation(graphics, playerName, plugin.offSetTextZ);
+        PartySpecialTrackerLabelCache.Sprite sprite = entry.getSprite();
+        if(sprite == null)
+        {
+            //only lay out labels that could reach the viewport
+            if(anchorX < viewportLeft - CULL_MARGIN || anchorX > viewportRight + CULL_MARGIN || y < viewportTop - CULL_MARGIN || y > viewportBottom + CULL_MARGIN)
+            {
+                return;
+            }
+            sprite = labelCache.Get(graphics, entry.getLabelText(), entry.getTickText(), entry.getColor());
+            entry.setSprite(sprite);
+        }
 
-        float verticalOffSetMultiplier = 1f + (playersTracked * (((float)plugin.offSetStackVertical)/100f));
+        int x = anchorX - (sprite.getLabelWidth() / 2);
+        int top = y - sprite.getAscent();
+        BufferedImage image = sprite.getImage();
+        if(x + image.getWidth() < viewportLeft || x > viewportRight || top + image.getHeight() < viewportTop || top > viewportBottom)
+        {
+            return;
+        }
 
-        if(textLocation != null)
+        if(spreadDeadline != 0 && System.nanoTime() < spreadDeadline)
         {
-            textLocation = new Point(textLocation.getX()+ plugin.offSetTextHorizontal, (-plugin.offSetTextVertical)+(int) (textLocation.getY() * verticalOffSetMultiplier));
-            RenderSpecialText(graphics, textLocation, playerName, tickDisplayString, color,lingeringTick);
+            int placed = labelGrid.Place(x, top, image.getWidth(), image.getHeight());
+            y += placed - top;
         }
 
+        RenderSpecialText(graphics, x, y, sprite, tickAlpha);
     }
 
     /**
      * Modified version of {@link net.runelite.client.ui.overlay.OverlayUtil#renderTextLocation(Graphics2D, Point, String, Color)} <br>
-     * Draws an initial string with the special value, followed by drawing a string of the ticks since special drain.<br>
+     * Draws the pre-rendered special value and ticks since special drain in a single blit.<br>
      * Used to draw left to right rather than being centered, maintains value location whether or not ticks are currently displayed.
+     * @param tickAlpha Alpha of the ticks since drain text, anything below 0xFF splits the blit to fade the ticks
      */
-    public void RenderSpecialText(Graphics2D graphics, Point txtLoc, String specialValueText, String ticksSinceSpecialText, Color color, boolean lingeringTick) {
-
-        int x = txtLoc.getX();
-        int y = txtLoc.getY();
-
-        graphics.setColor(Color.BLACK);
-        graphics.drawString(specialValueText, x  + 1, y + 1);
-
-        graphics.setColor(ColorUtil.colorWithAlpha(color, 0xFF));
-        graphics.drawString(specialValueText, x , y);
-
+    public void RenderSpecialText(Graphics2D graphics, int x, int y, PartySpecialTrackerLabelCache.Sprite sprite, int tickAlpha) {
 
-        FontMetrics fm = graphics.getFontMetrics();
-        int textWidth = fm.stringWidth(specialValueText);
+        BufferedImage image = sprite.getImage();
+        int top = y - sprite.getAscent();
 
-        int alpha = 0xFF;
-        if(lingeringTick)
+        if(tickAlpha == 0xFF)
         {
-            //following the last tick the text will linger and fade out
-            float tickPercentage = (client.getGameCycle() - plugin.getLastKnownGameCycle()) / 30f;
-            alpha = (int) (255 - (255 * tickPercentage));
+            graphics.drawImage(image, x, top, null);
+            return;
         }
 
-        graphics.setColor(ColorUtil.colorWithAlpha(Color.BLACK, alpha));
-        graphics.drawString(ticksSinceSpecialText, x+textWidth+1, y+1);
+        int labelWidth = sprite.getLabelWidth();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        graphics.drawImage(image, x, top, x + labelWidth, top + height, 0, 0, labelWidth, height, null);
 
-        graphics.setColor(ColorUtil.colorWithAlpha(Color.yellow, alpha));
-        graphics.drawString(ticksSinceSpecialText, x+textWidth, y);
+        Composite composite = graphics.getComposite();
+        graphics.setComposite(ALPHA_COMPOSITES[tickAlpha]);
+        graphics.drawImage(image, x + labelWidth, top, x + width, top + height, labelWidth, 0, width, height, null);
+        graphics.setComposite(composite);
 
     }
 
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.awt.BorderLayout;
+import java.awt.GridLayout;
+import java.util.List;
+import javax.inject.Inject;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.Timer;
+import javax.swing.border.EmptyBorder;
+
+import lombok.Value;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+import net.runelite.client.ui.PluginPanel;
+
+/**
+ * Side panel of the party totals and recent special use of each member published by the plugin.<br>
+ * Refreshed on a Swing timer while the panel is open, labels are only touched when the totals have changed.
+ */
+class PartySpecialTrackerPanel extends PluginPanel
+{
+	private static final int REFRESH_MILLIS = 1000;
+
+	private final PartySpecialTrackerPlugin plugin;
+	private final Timer refreshTimer = new Timer(REFRESH_MILLIS, e -> Refresh());
+
+	/**
+	 * Special use of a member over the recent ticks of their history
+	 */
+	@Value
+	static class Activity
+	{
+		String name;
+		/*drains within the plugins activity window*/
+		int drains;
+		/*-1 if a full bar isn't within the history*/
+		int ticksSinceFull;
+	}
+
+	/*totals and activity currently shown*/
+	private PartySpecialTrackerAggregates.Totals shown;
+	private List<Activity> shownActivity;
+
+	private final JPanel activityRows = new JPanel(new GridLayout(0, 2, 0, 6));
+
+	private final JLabel members = new JLabel();
+	private final JLabel totalSpecial = new JLabel();
+	private final JLabel belowDesired = new JLabel();
+	private final JLabel lowest = new JLabel();
+	private final JLabel draining = new JLabel();
+
+	@Inject
+	PartySpecialTrackerPanel(PartySpecialTrackerPlugin plugin)
+	{
+		this.plugin = plugin;
+
+		setBorder(new EmptyBorder(10, 10, 10, 10));
+		setLayout(new BorderLayout(0, 10));
+
+		JLabel title = new JLabel("Party Special");
+		title.setFont(FontManager.getRunescapeBoldFont());
+		add(title, BorderLayout.NORTH);
+
+		JPanel rows = new JPanel(new GridLayout(0, 2, 0, 6));
+		rows.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+		rows.setBorder(new EmptyBorder(8, 8, 8, 8));
+		AddRow(rows, "Members", members);
+		AddRow(rows, "Total special", totalSpecial);
+		AddRow(rows, "Below desired", belowDesired);
+		AddRow(rows, "Lowest", lowest);
+		AddRow(rows, "Draining", draining);
+
+		activityRows.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+		activityRows.setBorder(new EmptyBorder(8, 8, 8, 8));
+
+		JPanel sections = new JPanel(new BorderLayout(0, 10));
+		sections.add(rows, BorderLayout.NORTH);
+		sections.add(activityRows, BorderLayout.CENTER);
+		add(sections, BorderLayout.CENTER);
+
+		Refresh();
+	}
+
+	@Override
+	public void onActivate()
+	{
+		plugin.setPanelOpen(true);
+		Refresh();
+		refreshTimer.start();
+	}
+
+	@Override
+	public void onDeactivate()
+	{
+		plugin.setPanelOpen(false);
+		refreshTimer.stop();
+	}
+
+	private static void AddRow(JPanel rows, String name, JLabel value)
+	{
+		JLabel label = new JLabel(name);
+		label.setFont(FontManager.getRunescapeSmallFont());
+		label.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+		value.setFont(FontManager.getRunescapeSmallFont());
+		value.setHorizontalAlignment(JLabel.RIGHT);
+		rows.add(label);
+		rows.add(value);
+	}
+
+	private void Refresh()
+	{
+		RefreshTotals();
+		RefreshActivity();
+	}
+
+	private void RefreshTotals()
+	{
+		PartySpecialTrackerAggregates.Totals totals = plugin.getTotals();
+		if (totals == shown)
+		{
+			return;
+		}
+		shown = totals;
+
+		members.setText(String.valueOf(totals.getMembers()));
+		totalSpecial.setText(totals.getTotalSpecial() + "%");
+		belowDesired.setText(String.valueOf(totals.getBelowDesired()));
+		lowest.setText(totals.getLowestName() == null ? "-" : totals.getLowestName() + " (" + totals.getLowestSpecial() + "%)");
+		draining.setText(String.valueOf(totals.getDraining()));
+	}
+
+	/**
+	 * One row per member of special uses in the last minute and time since they last had a full bar
+	 */
+	private void RefreshActivity()
+	{
+		List<Activity> activity = plugin.getActivity();
+		if (activity == shownActivity)
+		{
+			return;
+		}
+		shownActivity = activity;
+
+		activityRows.removeAll();
+		for (Activity member : activity)
+		{
+			String full = member.getTicksSinceFull() == -1 ? "-" : (member.getTicksSinceFull() * 600 / 1000) + "s";
+			AddRow(activityRows, member.getName(), new JLabel(member.getDrains() + " used, full " + full));
+		}
+		activityRows.revalidate();
+		activityRows.repaint();
+	}
+}
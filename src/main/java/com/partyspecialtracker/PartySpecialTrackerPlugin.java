@@ -27,10 +27,16 @@ package com.partyspecialtracker;
 import com.google.inject.Provides;
 
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.inject.Inject;
+import javax.swing.SwingUtilities;
 
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -40,13 +46,16 @@ import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
 import net.runelite.api.events.*;
 import net.runelite.api.widgets.Widget;
+import net.runelite.client.RuneLite;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.events.PartyChanged;
 
+import net.runelite.client.party.PartyMember;
 import net.runelite.client.party.WSClient;
+import net.runelite.client.party.events.UserJoin;
 import net.runelite.client.party.events.UserPart;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDependency;
@@ -54,9 +63,11 @@ import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.plugins.party.PartyPlugin;
 import net.runelite.client.plugins.party.PartyPluginService;
 import net.runelite.client.plugins.party.messages.StatusUpdate;
+import net.runelite.client.ui.ClientToolbar;
+import net.runelite.client.ui.NavigationButton;
 import net.runelite.client.ui.overlay.OverlayManager;
 import net.runelite.client.party.PartyService;
-import net.runelite.client.util.Text;
+import net.runelite.client.util.ImageUtil;
 
 import static com.partyspecialtracker.PartySpecialTrackerConfig.TextRenderType;
 
@@ -83,6 +94,9 @@ public class PartySpecialTrackerPlugin extends Plugin
 	@Inject
 	private PartySpecialTrackerOverlay partySpecialTrackerOverlay;
 
+	@Inject
+	private PartySpecialTrackerDebugOverlay partySpecialTrackerDebugOverlay;
+
 	@Inject
 	private PartySpecialTrackerConfig config;
 
@@ -95,18 +109,93 @@ public class PartySpecialTrackerPlugin extends Plugin
 	@Inject
 	private ClientThread clientThread;
 
+	@Inject
+	private ScheduledExecutorService executor;
+
+	@Inject
+	private ClientToolbar clientToolbar;
+
+	/**
+	 * Side panel and its button, built the first time the panel is enabled
+	 */
+	private PartySpecialTrackerPanel panel;
+	private NavigationButton navigationButton;
+
+	private final PartySpecialTrackerRecorder recorder = new PartySpecialTrackerRecorder();
+
+	@Getter(AccessLevel.PACKAGE)
+	private final PartySpecialTrackerMetrics metrics = new PartySpecialTrackerMetrics();
+
+	@Getter(AccessLevel.PACKAGE)
+	private final PartySpecialTrackerMemberRegistry members = new PartySpecialTrackerMemberRegistry(this::OnMemberRemoved);
+
+	/**
+	 * Party totals maintained as members change, see {@link #totals}
+	 */
+	private final PartySpecialTrackerAggregates aggregates = new PartySpecialTrackerAggregates();
+
+	/**
+	 * Totals for the side panel, published at the end of a tick when changed
+	 */
 	@Getter(AccessLevel.PACKAGE)
-	private final Map<String, PartySpecialTrackerMember> members = new ConcurrentHashMap<>();
+	private volatile PartySpecialTrackerAggregates.Totals totals = PartySpecialTrackerAggregates.Totals.EMPTY;
 
+	/**
+	 * Recent special use of each member for the side panel, rebuilt from member history while the panel is open
+	 */
 	@Getter(AccessLevel.PACKAGE)
+	private volatile List<PartySpecialTrackerPanel.Activity> activity = Collections.emptyList();
+
+	/**
+	 * Side panel is the open tab, set from the Swing thread
+	 */
 	@Setter(AccessLevel.PACKAGE)
-	private boolean usedSpecial = false;
+	private volatile boolean panelOpen;
+
+	/**
+	 * Party events waiting to be applied at the start of the next tick, members are only written from the client thread
+	 */
+	private final PartySpecialTrackerInbox inbox = new PartySpecialTrackerInbox(1024);
 
 	/**
-	 * Visible players from the configuration (Strings)
+	 * A drain of the inbox is queued on the client thread, only while logged out
+	 */
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+	/**
+	 * Players in the scene keyed by sanitized name, lets the overlay go from party member to player without scanning the scene
+	 */
+	private final Map<String, Player> scenePlayers = new HashMap<>();
+	private final Map<Player, PartySpecialTrackerNameCache.Name> scenePlayerNames = new HashMap<>();
+
+	private final PartySpecialTrackerNameCache nameCache = new PartySpecialTrackerNameCache();
+
+	/**
+	 * Party names by memberId, the party service is only asked for members without an entry
+	 */
+	private final PartySpecialTrackerMemberNames memberNames = new PartySpecialTrackerMemberNames();
+
+	/**
+	 * Incremented whenever the scene player index changes, lets the overlay keep its layout until then
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private int sceneRevision;
+
+	/**
+	 * Reused when building label text for the snapshot
+	 */
+	private final StringBuilder labelBuilder = new StringBuilder();
+
+	/**
+	 * Render state for the overlay, rebuilt on the client thread each tick and published in one swap
 	 */
 	@Getter(AccessLevel.PACKAGE)
-	private List<String> visiblePlayers = new ArrayList<>();
+	@Setter(AccessLevel.PACKAGE)
+	private volatile PartySpecialTrackerSnapshot snapshot = PartySpecialTrackerSnapshot.EMPTY;
+
+	@Getter(AccessLevel.PACKAGE)
+	@Setter(AccessLevel.PACKAGE)
+	private boolean usedSpecial = false;
 
 	private final String DEFAULT_MEMBER_NAME = "<unknown>";
 
@@ -118,37 +207,71 @@ public class PartySpecialTrackerPlugin extends Plugin
 	@Setter(AccessLevel.PACKAGE)
 	private int lastSpecialVarbitThisTick = -1;
 
-	/*<|Cached Configs*/
+	/**
+	 * Config values, replaced as a whole on change. Readers on other threads take the reference once and read from that.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private volatile PartySpecialTrackerSettings settings;
 
-	int desiredSpecial,
-			tickDisplay,
-			offSetTextHorizontal,
-			offSetTextVertical,
-			offSetTextZ,
-			offSetStackVertical,
-			fontSize,
-			desiredLocal,
-			dimAmount;
+	final int ENERGY_TRANSFER_ID = 32;
+	final int LUNAR_SPELLBOOK_ID = 1984;
+	final int SPELLBOOK_GROUP_ID = 218;
+	final int SPELLBOOK_VARBIT = 4070;
 
+	/**
+	 * Special last sent in a special update, -1 forces the next update to send
+	 */
+	private int lastSentSpecial = -1;
 
-	Color standardColor,
-			lowColor;
+	/**
+	 * Local special has changed this tick, coalesced into one special update on the tick
+	 */
+	private boolean specialUpdatePending;
 
+	/**
+	 * Sequence of the last fringe packet sent by the local player, receivers reset their order when the memberId changes
+	 */
+	private int fringeSequence;
 
-	boolean trackMe,
-			showAsTracker,
-			drawPercentByName,
-			drawParentheses,
-			boldFont,
-			dimXfer;
+	/**
+	 * Resolved Energy Transfer widget, -1 until resolved or after the spellbook reloads
+	 */
+	private int energyTransferWidgetId = -1;
 
-	TextRenderType nameRender,
-			specRender;
+	/**
+	 * Energy Transfer widget id once it was looked up and not found, kept until the spellbook reloads
+	 */
+	static final int ENERGY_TRANSFER_NOT_FOUND = -2;
 
-	/*Cached Configs|>*/
+	/**
+	 * Opacity last applied to the Energy Transfer widget, -1 when unknown
+	 */
+	private int energyTransferOpacity = -1;
 
-	final int ENERGY_TRANSFER_ID = 32;
-	final int LUNAR_SPELLBOOK_ID = 1984;
+	/**
+	 * Members checked for timeout each tick, stale members are evicted gradually rather than in one sweep
+	 */
+	final int EVICTION_BATCH = 4;
+
+	/**
+	 * Ticks of history counted as recent special use in the side panel, a minute
+	 */
+	final int ACTIVITY_WINDOW = 100;
+
+	/**
+	 * Ticks between rebuilds of the side panel activity
+	 */
+	final int ACTIVITY_INTERVAL = 2;
+
+	/**
+	 * Slot the timeout sweep continues from, wraps around the member store
+	 */
+	private int evictionCursor;
+
+	/**
+	 * Time of the current tick, read once per tick and stamped on members as they are seen
+	 */
+	private long tickMillis = System.currentTimeMillis();
 
 	@Provides
 	PartySpecialTrackerConfig provideConfig(ConfigManager configManager)
@@ -159,19 +282,45 @@ public class PartySpecialTrackerPlugin extends Plugin
 	@Override
 	protected void startUp()
 	{
-		CacheConfigs();
+		settings = PartySpecialTrackerSettings.Load(config, 0);
+		inbox.Clear();
 		overlayManager.add(partySpecialTrackerOverlay);
+		UpdateDebugOverlay();
+		UpdateRecording();
+		UpdatePanel();
 		lastSpecialVarbitThisTick = -1;
 		usedSpecial = false;
 		wsClient.registerMessage(PartySpecialTrackerFringeConditionUpdate.class);
+		wsClient.registerMessage(PartySpecialTrackerSpecialUpdate.class);
+		clientThread.invokeLater(() ->
+		{
+			for (Player player : client.getPlayers())
+			{
+				IndexPlayer(player);
+			}
+		});
 	}
 
 	@Override
 	protected void shutDown()
 	{
 		wsClient.unregisterMessage(PartySpecialTrackerFringeConditionUpdate.class);
+		wsClient.unregisterMessage(PartySpecialTrackerSpecialUpdate.class);
 		overlayManager.remove(partySpecialTrackerOverlay);
-		members.clear();
+		overlayManager.remove(partySpecialTrackerDebugOverlay);
+		SwingUtilities.invokeLater(() -> ShowPanel(false));
+		metrics.setEnabled(false);
+		recorder.Stop();
+		snapshot = PartySpecialTrackerSnapshot.EMPTY;
+		members.Clear();
+		aggregates.Clear();
+		totals = PartySpecialTrackerAggregates.Totals.EMPTY;
+		activity = Collections.emptyList();
+		panelOpen = false;
+		evictionCursor = 0;
+		ClearPlayerIndex();
+		nameCache.Clear();
+		memberNames.Clear();
 	}
 
 	/**
@@ -180,7 +329,18 @@ public class PartySpecialTrackerPlugin extends Plugin
 	@Subscribe
 	public void onPartyChanged(PartyChanged partyChanged)
 	{
-		members.clear();
+		//pending status updates are from the previous party
+		inbox.DiscardLatest();
+		EnqueueControl(partyChanged);
+	}
+
+	/**
+	 * A member has joined the party, they have no special from us yet
+	 */
+	@Subscribe
+	public void onUserJoin(final UserJoin message)
+	{
+		EnqueueControl(message);
 	}
 
 	/**
@@ -189,32 +349,89 @@ public class PartySpecialTrackerPlugin extends Plugin
 	@Subscribe
 	public void onUserPart(final UserPart message)
 	{
-		//name not always present, find by id
-		String name = "";
-		for (Map.Entry<String, PartySpecialTrackerMember> entry: members.entrySet()) {
-			if(entry.getValue().getMemberID() == message.getMemberId()){
-				name = entry.getKey();
+		inbox.DiscardLatest(message.getMemberId());
+		EnqueueControl(message);
+	}
+
+	private void HandleUserPart(final UserPart message)
+	{
+		//name not always present, members are indexed by id
+		EvictMember(message.getMemberId());
+	}
+
+	/**
+	 * A member has stopped being tracked, take it out of the totals
+	 */
+	private void OnMemberRemoved(PartySpecialTrackerMember member)
+	{
+		aggregates.Remove(member);
+	}
+
+	@Subscribe
+	public void onPlayerSpawned(PlayerSpawned event)
+	{
+		IndexPlayer(event.getPlayer());
+	}
+
+	@Subscribe
+	public void onPlayerDespawned(PlayerDespawned event)
+	{
+		UnindexPlayer(event.getPlayer());
+	}
+
+	/**
+	 * Name can be missing on spawn or change afterwards, re-index the player
+	 */
+	@Subscribe
+	public void onPlayerChanged(PlayerChanged event)
+	{
+		Player player = event.getPlayer();
+		PartySpecialTrackerNameCache.Name previous = scenePlayerNames.get(player);
+		if (previous != null && !previous.getRaw().equals(player.getName()))
+		{
+			nameCache.Invalidate(previous.getRaw());
+		}
+		UnindexPlayer(player);
+		IndexPlayer(player);
+	}
+
+	@Subscribe
+	public void onGameStateChanged(GameStateChanged event)
+	{
+		if (event.getGameState() == GameState.LOGIN_SCREEN)
+		{
+			//no ticks until the next login, apply what has queued up so far
+			DrainInboxWithoutTick();
+		}
+
+		if (event.getGameState() == GameState.LOGIN_SCREEN || event.getGameState() == GameState.HOPPING)
+		{
+			ClearPlayerIndex();
+			InvalidateEnergyTransferWidget();
+			//the tick count restarts on the next login, predictions are made again once packets confirm the special
+			for (PartySpecialTrackerMember member : members.Values())
+			{
+				member.ResetPrediction();
 			}
 		}
-		if(!name.isEmpty()) {
-			members.remove(name);
+
+		//the next login can be a different account, ask the party service until our own status update names it
+		if (event.getGameState() == GameState.LOGIN_SCREEN && partyService.getLocalMember() != null)
+		{
+			memberNames.Remove(partyService.getLocalMember().getMemberId());
 		}
 	}
 
 	/**
-	 * Parse config list of player names and convert into a list of strings.<br>
-	 * Used to determine which tracked players you want to see.
+	 * Spellbook interface has been rebuilt, the Energy Transfer widget has to be resolved again
 	 */
-	public List<String> parseVisiblePlayers()
+	@Subscribe
+	public void onWidgetLoaded(WidgetLoaded event)
 	{
-		final String configPlayers = config.getVisiblePlayers().toLowerCase();
-
-		if (configPlayers.isEmpty())
+		if (event.getGroupId() == SPELLBOOK_GROUP_ID)
 		{
-			return Collections.emptyList();
+			InvalidateEnergyTransferWidget();
 		}
-
-		return Text.fromCSV(configPlayers);
 	}
 
 	/**
@@ -228,14 +445,30 @@ public class PartySpecialTrackerPlugin extends Plugin
 			return;
 		}
 
-		CacheConfigs();
-
 		String key = configChanged.getKey();
+		UpdateSettings(key);
+		clientThread.invokeLater(this::PublishSnapshot);
+
+		if(key.equals("sendSpecialUpdates")){
+			ResendSpecialUpdate();
+		}
+
+		if(key.equals("debugOverlay")){
+			UpdateDebugOverlay();
+		}
+
+		if(key.equals("recordSession")){
+			UpdateRecording();
+		}
+
+		if(key.equals("sidePanel")){
+			UpdatePanel();
+		}
 
 		if(key.equals("desiredLocal") || key.equals("dimXfer") || key.equals("dimAmount")){
 			clientThread.invokeLater(() -> {
 				ClearEnergyTransferDim();
-				if(dimXfer)
+				if(settings.isDimXfer())
 				{
 					DimEnergyTransfer();
 				}
@@ -245,35 +478,89 @@ public class PartySpecialTrackerPlugin extends Plugin
 	}
 
 	/**
-	 * Cache config values to reduce extensive checking
+	 * Show or hide the debug overlay, metrics are only recorded while it is shown
 	 */
-	public void CacheConfigs()
+	void UpdateDebugOverlay()
 	{
+		if (settings.isDebugOverlay())
+		{
+			metrics.Reset();
+			metrics.setEnabled(true);
+			overlayManager.add(partySpecialTrackerDebugOverlay);
+		}
+		else
+		{
+			metrics.setEnabled(false);
+			overlayManager.remove(partySpecialTrackerDebugOverlay);
+		}
+	}
 
-		desiredSpecial = config.getDesiredSpecial();
-		tickDisplay = config.getTickDisplay();
-		offSetTextHorizontal = config.offSetTextHorizontal();
-		offSetTextVertical = config.offSetTextVertial();
-		offSetTextZ = config.offSetTextZ();
-		offSetStackVertical = config.offSetStackVertical();
-		fontSize = config.fontSize();
-		desiredLocal = config.desiredLocal();
-		dimAmount = config.dimAmount();
+	/**
+	 * Start or stop recording the session to a new file
+	 */
+	void UpdateRecording()
+	{
+		if (!settings.isRecordSession())
+		{
+			recorder.Stop();
+			return;
+		}
 
-		standardColor = config.getStandardColor();
-		lowColor = config.getLowColor();
+		Path file = RuneLite.RUNELITE_DIR.toPath().resolve("party-special-tracker").resolve("session-" + System.currentTimeMillis() + ".pst");
+		try
+		{
+			recorder.Start(file, executor);
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to start tracker recording", e);
+		}
+	}
 
-		trackMe = config.getTrackMe();
-		showAsTracker = config.getShowAsTracker();
-		drawPercentByName = config.drawPercentByName();
-		drawParentheses = config.drawParentheses();
-		boldFont = config.boldFont();
-		dimXfer = config.dimXfer();
+	/**
+	 * Add or remove the side panel button, on the Swing thread as config changes arrive on their own thread
+	 */
+	void UpdatePanel()
+	{
+		boolean sidePanel = settings.isSidePanel();
+		SwingUtilities.invokeLater(() -> ShowPanel(sidePanel));
+	}
 
-		nameRender = config.nameRender();
-		specRender = config.specRender();
+	/**
+	 * Swing thread only, the panel and navigation button are only touched from here
+	 */
+	private void ShowPanel(boolean show)
+	{
+		if (!show)
+		{
+			if (navigationButton != null)
+			{
+				clientToolbar.removeNavigation(navigationButton);
+			}
+			return;
+		}
 
-		visiblePlayers = parseVisiblePlayers();
+		if (navigationButton == null)
+		{
+			panel = injector.getInstance(PartySpecialTrackerPanel.class);
+			BufferedImage icon = ImageUtil.resizeImage(ImageUtil.loadImageResource(getClass(), "panel_icon.png"), 16, 16, true);
+			navigationButton = NavigationButton.builder()
+					.tooltip("Party Special")
+					.icon(icon)
+					.priority(10)
+					.panel(panel)
+					.build();
+		}
+		clientToolbar.addNavigation(navigationButton);
+	}
+
+	/**
+	 * Re-read the changed config value and publish the new settings
+	 * @param key Key of the changed config item
+	 */
+	synchronized void UpdateSettings(String key)
+	{
+		settings = settings.Update(key, config);
 	}
 
 	/**
@@ -282,21 +569,73 @@ public class PartySpecialTrackerPlugin extends Plugin
 	 */
 	@Subscribe
 	public void onStatusUpdate(final StatusUpdate event){
+		long start = metrics.Start();
+		recorder.RecordStatusUpdate(event.getMemberId(), event.getCharacterName(), event.getSpecEnergy());
+		//queued in arrival order with the special updates, so an older special can't override a newer one
+		if (!inbox.Offer(event))
+		{
+			//inbox is full, only the latest update of each member waits until the next drain
+			inbox.OfferLatest(event.getMemberId(), event, PartySpecialTrackerPlugin::MergeStatusUpdates);
+		}
+		ScheduleDrain();
+		metrics.Record(PartySpecialTrackerMetrics.Probe.STATUS_UPDATE, start);
+	}
 
-		//two packets send on login, the first has false spec data and assumes the name is set when it can have changed.
-		//ignore the first invalid packet.
-		if(event.getCharacterName() == null && !partyService.getMemberById(event.getMemberId()).isLoggedIn())
-			return;
+	/**
+	 * Combine a status update waiting for room in the inbox with a newer one from the same member.<br>
+	 * Only the name and special are used. A sent name is kept, a special from before a newly sent name is dropped as it can be the false first packet of a login.
+	 * Events are shared with other subscribers, so a new update is returned rather than modifying either.
+	 */
+	static Object MergeStatusUpdates(Object pending, Object newer)
+	{
+		StatusUpdate older = (StatusUpdate) pending;
+		StatusUpdate update = (StatusUpdate) newer;
+
+		StatusUpdate merged = new StatusUpdate();
+		merged.setMemberId(update.getMemberId());
+		if (update.getCharacterName() != null)
+		{
+			merged.setCharacterName(update.getCharacterName());
+			merged.setSpecEnergy(update.getSpecEnergy() != null || older.getCharacterName() == null ? update.getSpecEnergy() : older.getSpecEnergy());
+		}
+		else
+		{
+			merged.setCharacterName(older.getCharacterName());
+			merged.setSpecEnergy(update.getSpecEnergy() != null ? update.getSpecEnergy() : older.getSpecEnergy());
+		}
+		return merged;
+	}
+
+	private void HandleStatusUpdate(final StatusUpdate event){
+
+		//any update, with or without special, shows a known member is still around
+		PartySpecialTrackerMember known = members.GetById(event.getMemberId());
+		if(known != null){
+			known.setLastSeen(tickMillis);
+		}
 
 		String name;
-		if((name = event.getCharacterName()) == null){
-			if((name = partyService.getMemberById(event.getMemberId()).getDisplayName()) == null)
+		if((name = event.getCharacterName()) != null){
+			//name is sent on login and name change, empty once logged out. sanitized the same as the party service name
+			memberNames.Put(event.getMemberId(), SanitizeName(name), !name.isEmpty());
+		}else{
+			//two packets send on login, the first has false spec data and assumes the name is set when it can have changed.
+			//ignore the first invalid packet.
+			PartySpecialTrackerMemberNames.Entry entry = ResolveMemberName(event.getMemberId());
+			if(entry == null || !entry.isLoggedIn())
+				return;
+
+			if((name = entry.getName()) == null)
 			{
 				return;
 			}
 		}
 
 		if(name.isEmpty()){
+			//logged out, keep showing the last confirmed special rather than predicting it up to full
+			if(known != null){
+				known.ResetPrediction();
+			}
 			return;
 		}
 
@@ -306,20 +645,178 @@ public class PartySpecialTrackerPlugin extends Plugin
 		UpdateMember(name,event);
 	}
 
+	/**
+	 * Party name and login state of a member, from the party service only the first time it is needed
+	 * @return null if the party service doesn't know the member
+	 */
+	PartySpecialTrackerMemberNames.Entry ResolveMemberName(long memberId)
+	{
+		PartySpecialTrackerMemberNames.Entry entry = memberNames.Get(memberId);
+		if (entry == null)
+		{
+			PartyMember member = partyService.getMemberById(memberId);
+			if (member == null)
+			{
+				return null;
+			}
+			entry = memberNames.Put(memberId, member.getDisplayName(), member.isLoggedIn());
+		}
+		return entry;
+	}
+
 	/**
 	 * Received packet from party member.<br>
-	 * Party members special has drained in fringe case, start tracking time<br>
+	 * Party members special has drained in fringe case, apply the drained special and start tracking time<br>
 	 */
 	@Subscribe
 	public void onPartySpecialTrackerFringeConditionUpdate(PartySpecialTrackerFringeConditionUpdate packet)
 	{
-		String name = partyService.getMemberById(packet.getMemberId()).getDisplayName();
-		if (name == null)
+		recorder.RecordFringeUpdate(packet.getMemberId(), packet.getSpecial(), packet.getSequence());
+		Enqueue(packet);
+	}
+
+	private void HandleFringeConditionUpdate(PartySpecialTrackerFringeConditionUpdate packet)
+	{
+		//member is created by their first status update, nothing to drain before that
+		PartySpecialTrackerMember member = members.GetById(packet.getMemberId());
+		if (member == null)
+		{
+			return;
+		}
+
+		//empty marker from a sender on an older version, the special is unknown so only the drain is tracked
+		if (packet.getSpecial() == null || packet.getSequence() == null)
+		{
+			member.setLastSeen(tickMillis);
+			member.StartTrackingDrain();
+			return;
+		}
+
+		if (!member.AcceptFringeUpdate(packet.getSequence()))
+		{
+			return;
+		}
+
+		int tick = client.getTickCount();
+		member.ConfirmSpecial(packet.getSpecial(), tick, false);
+		member.getHistory().Append(tick, packet.getSpecial(), true);
+		member.setLastSeen(tickMillis);
+		aggregates.Update(member, packet.getSpecial());
+		member.StartTrackingDrain();
+	}
+
+	/**
+	 * Received compact special update from party member.<br>
+	 * Applied the same as the special of a status update.
+	 */
+	@Subscribe
+	public void onPartySpecialTrackerSpecialUpdate(PartySpecialTrackerSpecialUpdate packet)
+	{
+		recorder.RecordSpecialUpdate(packet.getMemberId(), packet.getSpecial());
+		Enqueue(packet);
+	}
+
+	private void HandleSpecialUpdate(PartySpecialTrackerSpecialUpdate packet)
+	{
+		//member is created by their first status update
+		PartySpecialTrackerMember member = members.GetById(packet.getMemberId());
+		if (member == null)
 		{
 			return;
 		}
 
-		members.get(name).StartTrackingDrain();
+		ApplySpecial(member, packet.getSpecial());
+	}
+
+	/**
+	 * Queue a party event to be applied on the next tick, see {@link #DrainInbox()}
+	 */
+	private void Enqueue(Object event)
+	{
+		if (!inbox.Offer(event))
+		{
+			log.debug("Party event inbox full, dropped {}", event.getClass().getSimpleName());
+		}
+		ScheduleDrain();
+	}
+
+	/**
+	 * Queue a join, part or party change, these are never dropped
+	 */
+	private void EnqueueControl(Object event)
+	{
+		inbox.OfferControl(event);
+		ScheduleDrain();
+	}
+
+	/**
+	 * Ticks don't run while logged out, have the client thread drain the inbox instead so it keeps up until the next login
+	 */
+	private void ScheduleDrain()
+	{
+		if (client.getGameState() != GameState.LOGGED_IN && drainScheduled.compareAndSet(false, true))
+		{
+			clientThread.invokeLater(() ->
+			{
+				drainScheduled.set(false);
+				DrainInboxWithoutTick();
+			});
+		}
+	}
+
+	private void DrainInboxWithoutTick()
+	{
+		tickMillis = System.currentTimeMillis();
+		DrainInbox();
+	}
+
+	/**
+	 * Apply queued party events in arrival order, followed by the status updates that arrived while the inbox was full.<br>
+	 * Runs on the client thread at the start of the tick, giving members a single writer and a consistent state for the rest of the tick.
+	 */
+	void DrainInbox()
+	{
+		Object event;
+		while ((event = inbox.Poll()) != null)
+		{
+			if (event instanceof StatusUpdate)
+			{
+				ApplyStatusUpdate(event);
+			}
+			else if (event instanceof PartySpecialTrackerFringeConditionUpdate)
+			{
+				HandleFringeConditionUpdate((PartySpecialTrackerFringeConditionUpdate) event);
+			}
+			else if (event instanceof PartySpecialTrackerSpecialUpdate)
+			{
+				HandleSpecialUpdate((PartySpecialTrackerSpecialUpdate) event);
+			}
+			else if (event instanceof UserPart)
+			{
+				HandleUserPart((UserPart) event);
+			}
+			else if (event instanceof UserJoin)
+			{
+				ResendSpecialUpdate();
+			}
+			else if (event instanceof PartyChanged)
+			{
+				memberNames.Clear();
+				members.Clear();
+				aggregates.Clear();
+				ResendSpecialUpdate();
+			}
+		}
+
+		//arrived after everything that was in the inbox at the time, parts and party changes already dropped theirs
+		inbox.DrainLatest(this::ApplyStatusUpdate);
+	}
+
+	private void ApplyStatusUpdate(Object event)
+	{
+		long start = metrics.Start();
+		HandleStatusUpdate((StatusUpdate) event);
+		metrics.Record(PartySpecialTrackerMetrics.Probe.APPLY_STATUS_UPDATE, start);
 	}
 
 	/**
@@ -328,26 +825,34 @@ public class PartySpecialTrackerPlugin extends Plugin
 	@Subscribe
 	public void onGameTick(GameTick event)
 	{
+		recorder.RecordGameTick(client.getTickCount());
+		long start = metrics.Start();
+		HandleGameTick();
+		metrics.Record(PartySpecialTrackerMetrics.Probe.GAME_TICK, start);
+	}
+
+	private void HandleGameTick()
+	{
+		PartySpecialTrackerSettings settings = this.settings;
+		tickMillis = System.currentTimeMillis();
+		DrainInbox();
+
 		//save current cycle to determine duration into the current tick
 		lastKnownGameCycle = client.getGameCycle();
 		lastSpecialVarbitThisTick = -1;
 
-		//increment members with active ticks
-		for (PartySpecialTrackerMember member : members.values())
-		{
-			if(!member.IsTrackingDrain())
-				continue;
-			member.IncrementTicksSinceDrain(tickDisplay);
-		}
+		//increment members with active ticks in one pass over the store
+		int draining = members.getStore().IncrementDrainTimers(settings.getTickDisplay());
 
 		//Check for fringe case, occurs when xfer is recieved the same tick it's used
 		if(usedSpecial)
 		{
 			usedSpecial = false;
-			if (trackMe && IsValidAndInParty())
+			if (settings.isTrackMe() && IsValidAndInParty())
 			{
 				String currentLocalUsername = GetLocalPlayerName();
-				String partyName = partyService.getMemberById(partyService.getLocalMember().getMemberId()).getDisplayName();
+				PartySpecialTrackerMemberNames.Entry localEntry = ResolveMemberName(partyService.getLocalMember().getMemberId());
+				String partyName = localEntry == null ? null : localEntry.getName();
 				//dont send unless the partyname has updated to the local name
 				if (currentLocalUsername != null && currentLocalUsername.equals(partyName))
 				{
@@ -356,6 +861,122 @@ public class PartySpecialTrackerPlugin extends Plugin
 			}
 		}
 
+		if(specialUpdatePending)
+		{
+			specialUpdatePending = false;
+			if (settings.isSendSpecialUpdates() && settings.isTrackMe() && IsValidAndInParty())
+			{
+				SendSpecialUpdate();
+			}
+		}
+
+		EvictStaleMembers(settings);
+
+		//the panel counts the same predicted special the overlay draws
+		int tick = client.getTickCount();
+		for (PartySpecialTrackerMember member : members.Values())
+		{
+			aggregates.Update(member, member.PredictSpecial(tick));
+		}
+
+		aggregates.SetThreshold(settings.getDesiredSpecial());
+		aggregates.SetDraining(draining);
+		PartySpecialTrackerAggregates.Totals published = aggregates.Publish();
+		if (published != null)
+		{
+			totals = published;
+		}
+
+		//only summarized for an open panel, nothing reads it otherwise
+		if (panelOpen && tick % ACTIVITY_INTERVAL == 0)
+		{
+			PublishActivity(tick);
+		}
+
+		PublishSnapshot(settings);
+	}
+
+	/**
+	 * Summarize the history of every member for the side panel
+	 * @param tick Current local game tick
+	 */
+	private void PublishActivity(int tick)
+	{
+		List<PartySpecialTrackerPanel.Activity> rows = new ArrayList<>(members.Size());
+		for (PartySpecialTrackerMember member : members.Values())
+		{
+			PartySpecialTrackerHistory history = member.getHistory();
+			rows.add(new PartySpecialTrackerPanel.Activity(GetDisplayName(member.getName()),
+				history.CountDrainsSince(tick - ACTIVITY_WINDOW, tick), history.TicksSinceFullSpecial(tick)));
+		}
+		activity = Collections.unmodifiableList(rows);
+	}
+
+	/**
+	 * Members idle in the scene send no updates but are still around, their timeout counts from when they leave the scene.
+	 * @param sanitizedName see {@link #SanitizeName(String)}
+	 */
+	private void StampLastSeen(String sanitizedName)
+	{
+		PartySpecialTrackerMember member = members.GetByName(sanitizedName);
+		if (member != null)
+		{
+			member.setLastSeen(tickMillis);
+		}
+	}
+
+	/**
+	 * Stop tracking a member along with its party name
+	 */
+	private void EvictMember(long memberId)
+	{
+		members.RemoveById(memberId);
+		memberNames.Remove(memberId);
+	}
+
+	/**
+	 * Evict members that have not been seen within the timeout and the least recently seen members beyond max members.<br>
+	 * Only {@link #EVICTION_BATCH} members are checked for timeout per tick, stale members are cleared over the following ticks.
+	 * Members still in the scene are never stale.
+	 */
+	void EvictStaleMembers(PartySpecialTrackerSettings settings)
+	{
+		PartySpecialTrackerMemberStore store = members.getStore();
+		if (members.Size() > settings.getMaxMembers())
+		{
+			//only while a burst of new members exceeds the cap, one eviction per tick
+			EvictMember(store.getMemberId(store.FindOldest()));
+		}
+
+		int highWater = store.getHighWater();
+		if (settings.getMemberTimeout() == 0 || highWater == 0)
+		{
+			return;
+		}
+
+		long cutoff = tickMillis - TimeUnit.MINUTES.toMillis(settings.getMemberTimeout());
+		for (int i = 0; i < EVICTION_BATCH; i++)
+		{
+			if (evictionCursor >= highWater)
+			{
+				evictionCursor = 0;
+			}
+
+			//free slots have no member and are never stale
+			int slot = evictionCursor++;
+			if (store.getLastSeen(slot) < cutoff && store.getTicksSinceDrain(slot) == -1)
+			{
+				PartySpecialTrackerMember member = store.getMember(slot);
+				if (scenePlayers.containsKey(member.getName()))
+				{
+					member.setLastSeen(tickMillis);
+				}
+				else
+				{
+					EvictMember(store.getMemberId(slot));
+				}
+			}
+		}
 	}
 
 	/**
@@ -363,11 +984,28 @@ public class PartySpecialTrackerPlugin extends Plugin
 	 */
 	@Subscribe
 	public void onVarbitChanged(VarbitChanged event)
+	{
+		if (event.getVarpId() == VarPlayer.SPECIAL_ATTACK_PERCENT)
+		{
+			recorder.RecordSpecialVarbit(event.getValue());
+		}
+		long start = metrics.Start();
+		HandleVarbitChanged(event);
+		metrics.Record(PartySpecialTrackerMetrics.Probe.VARBIT_CHANGED, start);
+	}
+
+	private void HandleVarbitChanged(VarbitChanged event)
 	{
 		//special is set to 0 on these states, disregard this information
 		if(client.getGameState() == GameState.LOGGING_IN || client.getGameState() == GameState.HOPPING)
 			return;
 
+		if (event.getVarbitId() == SPELLBOOK_VARBIT)
+		{
+			InvalidateEnergyTransferWidget();
+			return;
+		}
+
 		if (event.getVarpId() != VarPlayer.SPECIAL_ATTACK_PERCENT)
 			return;
 
@@ -383,9 +1021,10 @@ public class PartySpecialTrackerPlugin extends Plugin
 			usedSpecial = true;
 		}
 		lastSpecialVarbitThisTick = currentSpecial;
+		specialUpdatePending = true;
 
-		if(dimXfer){
-			if(currentSpecial >= desiredLocal){
+		if(settings.isDimXfer()){
+			if(currentSpecial >= settings.getDesiredLocal()){
 				ClearEnergyTransferDim();
 			}else{
 				DimEnergyTransfer();
@@ -404,7 +1043,10 @@ public class PartySpecialTrackerPlugin extends Plugin
 			return;
 		}
 
-		if(!dimXfer)
+		//spells are redrawn, opacity may have been reset
+		energyTransferOpacity = -1;
+
+		if(!settings.isDimXfer())
 			return;
 
 		DimEnergyTransfer();
@@ -412,25 +1054,56 @@ public class PartySpecialTrackerPlugin extends Plugin
 
 	void DimEnergyTransfer(){
 
+		PartySpecialTrackerSettings settings = this.settings;
 		int special = client.getVarpValue(VarPlayer.SPECIAL_ATTACK_PERCENT)/10;
-		if(special >= desiredLocal)
+		if(special >= settings.getDesiredLocal())
 			return;
 
-		EnumComposition spellbookEnum = client.getEnum(LUNAR_SPELLBOOK_ID);
-		ItemComposition spellObj = client.getItemDefinition(spellbookEnum.getIntValue(ENERGY_TRANSFER_ID));
-		Widget w = client.getWidget(spellObj.getIntValue(ParamID.SPELL_BUTTON));
-		if(w != null && w.getName().contains("Energy Transfer")){
-			w.setOpacity(dimAmount);
-		}
+		SetEnergyTransferOpacity(settings.getDimAmount());
 	}
 
 	void ClearEnergyTransferDim(){
-		EnumComposition spellbookEnum = client.getEnum(LUNAR_SPELLBOOK_ID);
-		ItemComposition spellObj = client.getItemDefinition(spellbookEnum.getIntValue(ENERGY_TRANSFER_ID));
-		Widget w = client.getWidget(spellObj.getIntValue(ParamID.SPELL_BUTTON));
-		if(w != null && w.getName().contains("Energy Transfer")){
-			w.setOpacity(0);
+		SetEnergyTransferOpacity(0);
+	}
+
+	/**
+	 * Apply opacity to the Energy Transfer widget, skipped when it is already applied
+	 */
+	void SetEnergyTransferOpacity(int opacity){
+		if(opacity == energyTransferOpacity)
+			return;
+
+		Widget w = GetEnergyTransferWidget();
+		if(w != null){
+			w.setOpacity(opacity);
+			energyTransferOpacity = opacity;
+		}
+	}
+
+	/**
+	 * Resolve the Energy Transfer widget, the id or its absence is cached until the spellbook reloads
+	 */
+	Widget GetEnergyTransferWidget(){
+		if(energyTransferWidgetId == ENERGY_TRANSFER_NOT_FOUND)
+			return null;
+		if(energyTransferWidgetId == -1){
+			EnumComposition spellbookEnum = client.getEnum(LUNAR_SPELLBOOK_ID);
+			ItemComposition spellObj = client.getItemDefinition(spellbookEnum.getIntValue(ENERGY_TRANSFER_ID));
+			Widget w = client.getWidget(spellObj.getIntValue(ParamID.SPELL_BUTTON));
+			if(w == null || !w.getName().contains("Energy Transfer")){
+				//spellbook not loaded or not lunar, wait for it to reload rather than looking it up on every change
+				energyTransferWidgetId = ENERGY_TRANSFER_NOT_FOUND;
+				return null;
+			}
+			energyTransferWidgetId = w.getId();
+			return w;
 		}
+		return client.getWidget(energyTransferWidgetId);
+	}
+
+	void InvalidateEnergyTransferWidget(){
+		energyTransferWidgetId = -1;
+		energyTransferOpacity = -1;
 	}
 
 
@@ -442,11 +1115,34 @@ public class PartySpecialTrackerPlugin extends Plugin
 	{
 		if(partyService.getLocalMember() != null)
 		{
-			PartySpecialTrackerFringeConditionUpdate packet = new PartySpecialTrackerFringeConditionUpdate();
+			int special = client.getVarpValue(VarPlayer.SPECIAL_ATTACK_PERCENT)/10;
+			PartySpecialTrackerFringeConditionUpdate packet = new PartySpecialTrackerFringeConditionUpdate(special, ++fringeSequence);
 			partyService.send(packet);
 		}
 	}
 
+	/**
+	 * Send the local special if it has changed since the last special update
+	 */
+	void SendSpecialUpdate()
+	{
+		int special = client.getVarpValue(VarPlayer.SPECIAL_ATTACK_PERCENT)/10;
+		if(special == lastSentSpecial || partyService.getLocalMember() == null)
+			return;
+
+		lastSentSpecial = special;
+		partyService.send(new PartySpecialTrackerSpecialUpdate(special));
+	}
+
+	/**
+	 * Have the next tick send the local special even if unchanged
+	 */
+	void ResendSpecialUpdate()
+	{
+		lastSentSpecial = -1;
+		specialUpdatePending = true;
+	}
+
 	/**
 	 * Updates or adds player to the map of tracked party members.
 	 * @param memberName Party member name, this is a sanitized Jagex name.
@@ -459,36 +1155,129 @@ public class PartySpecialTrackerPlugin extends Plugin
 			return;
 		}
 
+		long start = metrics.Start();
 		int updatedSpecial = update.getSpecEnergy();
 		long memberID = update.getMemberId();
-		boolean memberUsedSpecial = false;
 
-		if(members.containsKey(memberName))
+		PartySpecialTrackerMember member = members.Update(memberName, memberID, updatedSpecial);
+		ApplySpecial(member, updatedSpecial);
+		metrics.Record(PartySpecialTrackerMetrics.Probe.UPDATE_MEMBER, start);
+	}
+
+	/**
+	 * Set a members special, starting the drain timer if it has gone down
+	 */
+	void ApplySpecial(PartySpecialTrackerMember member, int updatedSpecial)
+	{
+		int tick = client.getTickCount();
+		boolean drained = member.getCurrentSpecial() > updatedSpecial;
+		if(drained)
 		{
-			PartySpecialTrackerMember member = members.get(memberName);
-			member.setMemberID(memberID);
-			if(member.getCurrentSpecial() > updatedSpecial){
-				memberUsedSpecial = true;
-			}
-			member.setCurrentSpecial(updatedSpecial);
-		}else{
-			members.put(memberName, new PartySpecialTrackerMember(memberName, memberID, updatedSpecial));
+			member.StartTrackingDrain();
 		}
+		member.ConfirmSpecial(updatedSpecial, tick, !drained);
+		member.getHistory().Append(tick, updatedSpecial, drained);
+		member.setLastSeen(tickMillis);
+		aggregates.Update(member, updatedSpecial);
+	}
 
-		if(memberUsedSpecial)
+	/**
+	 * Build the render state of every visible member for this tick and publish it to the overlay.<br>
+	 * Entries of members that haven't changed are carried over from the previous snapshot along with their rendered label.
+	 */
+	void PublishSnapshot()
+	{
+		PublishSnapshot(settings);
+	}
+
+	private void PublishSnapshot(PartySpecialTrackerSettings settings)
+	{
+		if (settings.isTrackMe() && !settings.isShowAsTracker())
 		{
-			members.get(memberName).StartTrackingDrain();
+			snapshot = PartySpecialTrackerSnapshot.EMPTY;
+			return;
+		}
+
+		int tick = client.getTickCount();
+		List<PartySpecialTrackerSnapshot.Entry> entries = new ArrayList<>(members.Size());
+		for (PartySpecialTrackerMember member : members.Values())
+		{
+			String name = member.getName();
+			if (!RenderPlayer(settings, name))
+			{
+				continue;
+			}
+
+			//predicted between packets, see PartySpecialTrackerMember#PredictSpecial
+			int currentSpecial = member.PredictSpecial(tick);
+			boolean hasDesiredSpecial = settings.HasDesiredSpecial(currentSpecial);
+			boolean renderName = RenderText(settings.getNameRender(), hasDesiredSpecial);
+			boolean renderSpec = RenderText(settings.getSpecRender(), hasDesiredSpecial);
+			if (!renderName && !renderSpec)
+			{
+				continue;
+			}
+
+			String displayName = GetDisplayName(name);
+			int ticksSinceDrain = member.getTicksSinceDrain();
+			PartySpecialTrackerSnapshot.Entry entry = member.getRenderEntry();
+			if (entry == null || !entry.Matches(displayName, currentSpecial, ticksSinceDrain, settings.getRevision()))
+			{
+				labelBuilder.setLength(0);
+				if (renderName)
+				{
+					labelBuilder.append(displayName);
+				}
+				if (renderSpec)
+				{
+					labelBuilder.append(' ');
+					if (settings.isDrawParentheses())
+						labelBuilder.append('(');
+					labelBuilder.append(currentSpecial);
+					if (settings.isDrawPercentByName())
+						labelBuilder.append('%');
+					if (settings.isDrawParentheses())
+						labelBuilder.append(')');
+				}
+				String labelText = labelBuilder.toString();
+
+				labelBuilder.setLength(0);
+				if (ticksSinceDrain > -1)
+				{
+					labelBuilder.append(" 🗲").append(Math.min(ticksSinceDrain,settings.getTickDisplay()));
+				}
+				String tickText = labelBuilder.toString();
+
+				entry = new PartySpecialTrackerSnapshot.Entry(name, displayName, currentSpecial, ticksSinceDrain, settings.getRevision(),
+						hasDesiredSpecial ? settings.getStandardColor() : settings.getLowColor(), ticksSinceDrain == (settings.getTickDisplay()+1), labelText, tickText);
+				member.setRenderEntry(entry);
+			}
+			entries.add(entry);
 		}
 
+		snapshot = new PartySpecialTrackerSnapshot(true, lastKnownGameCycle, settings.getFontSize(), settings.isBoldFont(),
+				settings.getOffSetTextHorizontal(), settings.getOffSetTextVertical(), settings.getOffSetTextZ(), settings.getOffSetStackVertical(), settings.getMaxDistance(), settings.isSpreadLabels(),
+				entries.toArray(new PartySpecialTrackerSnapshot.Entry[0]));
 	}
 
 	/**
-	 * Remove tags and convert to Jagex name
+	 * Name of a member as shown in game, falls back to the sanitized name while they are not in the scene
+	 * @param sanitizedName see {@link #SanitizeName(String)}
+	 */
+	String GetDisplayName(String sanitizedName)
+	{
+		Player player = scenePlayers.get(sanitizedName);
+		PartySpecialTrackerNameCache.Name name = player == null ? null : scenePlayerNames.get(player);
+		return name == null ? sanitizedName : name.getDisplay();
+	}
+
+	/**
+	 * Remove tags and convert to Jagex name, cached per raw name
 	 * @param name Local players raw name
 	 */
 	String SanitizeName(String name)
 	{
-		return Text.removeTags(Text.toJagexName(name));
+		return nameCache.Sanitize(name);
 	}
 
 	/**
@@ -498,6 +1287,50 @@ public class PartySpecialTrackerPlugin extends Plugin
 		return SanitizeName(client.getLocalPlayer().getName());
 	}
 
+	void IndexPlayer(Player player)
+	{
+		if (player == null || player.getName() == null)
+		{
+			return;
+		}
+		PartySpecialTrackerNameCache.Name name = nameCache.Get(player.getName());
+		scenePlayers.put(name.getSanitized(), player);
+		scenePlayerNames.put(player, name);
+		sceneRevision++;
+	}
+
+	void UnindexPlayer(Player player)
+	{
+		PartySpecialTrackerNameCache.Name name = scenePlayerNames.remove(player);
+		if (name != null && scenePlayers.get(name.getSanitized()) == player)
+		{
+			scenePlayers.remove(name.getSanitized());
+			StampLastSeen(name.getSanitized());
+		}
+		sceneRevision++;
+	}
+
+	void ClearPlayerIndex()
+	{
+		for (String sanitizedName : scenePlayers.keySet())
+		{
+			StampLastSeen(sanitizedName);
+		}
+		scenePlayers.clear();
+		scenePlayerNames.clear();
+		sceneRevision++;
+	}
+
+	/**
+	 * Get the player in the scene for a tracked party member
+	 * @param sanitizedName see {@link #SanitizeName(String)}
+	 * @return null if the member is not currently in the scene
+	 */
+	Player GetScenePlayer(String sanitizedName)
+	{
+		return scenePlayers.get(sanitizedName);
+	}
+
 	/**
 	 * Check if text should be rendered based on player-chosen configs
 	 * @param textRenderType The chosen style of text rendering
@@ -511,21 +1344,16 @@ public class PartySpecialTrackerPlugin extends Plugin
 				|| (textRenderType == TextRenderType.WHEN_MISSING_SPEC && !hasDesiredSpecial);
 	}
 
-	/**
-	 * Check if a special value surpasses player-chosen config
-	 * @param specialValue Current special of a given party member
-	 */
-	public boolean HasDesiredSpecial(int specialValue){ return specialValue >= desiredSpecial; }
-
 	/**
 	 * Check if a given player should be rendered
 	 * @param sanitizedName see {@link #SanitizeName(String)}
 	 */
-	boolean RenderPlayer(String sanitizedName)
+	boolean RenderPlayer(PartySpecialTrackerSettings settings, String sanitizedName)
 	{
-		if(!members.containsKey(sanitizedName))
+		if(!members.ContainsName(sanitizedName))
 			return false;
-		return visiblePlayers.isEmpty() || visiblePlayers.contains(sanitizedName.toLowerCase());
+		List<String> visiblePlayers = settings.getVisiblePlayers();
+		return visiblePlayers.isEmpty() || visiblePlayers.contains(nameCache.Lowercase(sanitizedName));
 	}
 
 	/**
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only binary recording of the events handled by the plugin.<br>
+ * Handlers write into an in-memory buffer, a background task swaps buffers and appends the full one to the file so no I/O happens on the calling thread.<br>
+ * Format: int magic, short version, then records of byte type, long nanos since start and a type specific payload. Replayed by PartySpecialTrackerReplayer of the jmh benchmarks.
+ */
+@Slf4j
+class PartySpecialTrackerRecorder
+{
+	static final int MAGIC = 0x50535452;
+	static final short VERSION = 2;
+
+	static final byte STATUS_UPDATE = 1;
+	static final byte FRINGE_UPDATE = 2;
+	static final byte SPECIAL_UPDATE = 3;
+	static final byte SPECIAL_VARBIT = 4;
+	static final byte GAME_TICK = 5;
+
+	/*header of every record, type and timestamp*/
+	private static final int RECORD_HEADER = 1 + 8;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final long FLUSH_INTERVAL_MS = 1000;
+
+	private ByteBuffer front = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private ByteBuffer back = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	private FileChannel channel;
+	private ScheduledExecutorService executor;
+	private ScheduledFuture<?> flushTask;
+	private long startNanos;
+	private int dropped;
+
+	private volatile boolean recording;
+
+	/**
+	 * Start appending to a new file
+	 * @param executor Executor the file writes run on
+	 */
+	synchronized void Start(Path file, ScheduledExecutorService executor) throws IOException
+	{
+		if (recording)
+		{
+			return;
+		}
+
+		file.getParent().toFile().mkdirs();
+		FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		channel = fileChannel;
+		this.executor = executor;
+		startNanos = System.nanoTime();
+		dropped = 0;
+		//fresh buffers, a previous session may still be writing its last one
+		front = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		back = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		front.putInt(MAGIC).putShort(VERSION);
+
+		flushTask = executor.scheduleWithFixedDelay(() -> Flush(fileChannel), FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		recording = true;
+		log.debug("Recording tracker session to {}", file);
+	}
+
+	/**
+	 * Stop recording, remaining records are written and the file closed on the executor
+	 */
+	synchronized void Stop()
+	{
+		if (!recording)
+		{
+			return;
+		}
+
+		recording = false;
+		flushTask.cancel(false);
+
+		FileChannel closing = channel;
+		ByteBuffer remaining = front;
+		int droppedRecords = dropped;
+		channel = null;
+		executor.execute(() ->
+		{
+			Write(closing, remaining);
+			try
+			{
+				closing.close();
+			}
+			catch (IOException e)
+			{
+				log.warn("Unable to close tracker recording", e);
+			}
+			if (droppedRecords > 0)
+			{
+				log.warn("Tracker recording dropped {} records, buffer was full", droppedRecords);
+			}
+		});
+	}
+
+	void RecordStatusUpdate(long memberId, String characterName, Integer special)
+	{
+		if (!recording)
+		{
+			return;
+		}
+
+		byte[] name = characterName == null ? null : characterName.getBytes(StandardCharsets.UTF_8);
+		synchronized (this)
+		{
+			ByteBuffer buffer = Reserve(STATUS_UPDATE, 8 + 4 + 2 + (name == null ? 0 : name.length));
+			if (buffer == null)
+			{
+				return;
+			}
+			buffer.putLong(memberId);
+			buffer.putInt(special == null ? -1 : special);
+			if (name == null)
+			{
+				buffer.putShort((short) -1);
+			}
+			else
+			{
+				buffer.putShort((short) name.length);
+				buffer.put(name);
+			}
+		}
+	}
+
+	void RecordFringeUpdate(long memberId, Integer special, Integer sequence)
+	{
+		if (!recording)
+		{
+			return;
+		}
+
+		synchronized (this)
+		{
+			ByteBuffer buffer = Reserve(FRINGE_UPDATE, 8 + 4 + 4);
+			if (buffer != null)
+			{
+				//fields of the old empty marker are stored as -1
+				buffer.putLong(memberId)
+					.putInt(special == null ? -1 : special)
+					.putInt(sequence == null ? -1 : sequence);
+			}
+		}
+	}
+
+	void RecordSpecialUpdate(long memberId, int special)
+	{
+		if (!recording)
+		{
+			return;
+		}
+
+		synchronized (this)
+		{
+			ByteBuffer buffer = Reserve(SPECIAL_UPDATE, 8 + 4);
+			if (buffer != null)
+			{
+				buffer.putLong(memberId).putInt(special);
+			}
+		}
+	}
+
+	void RecordSpecialVarbit(int value)
+	{
+		if (!recording)
+		{
+			return;
+		}
+
+		synchronized (this)
+		{
+			ByteBuffer buffer = Reserve(SPECIAL_VARBIT, 4);
+			if (buffer != null)
+			{
+				buffer.putInt(value);
+			}
+		}
+	}
+
+	void RecordGameTick(int tick)
+	{
+		if (!recording)
+		{
+			return;
+		}
+
+		synchronized (this)
+		{
+			ByteBuffer buffer = Reserve(GAME_TICK, 4);
+			if (buffer != null)
+			{
+				buffer.putInt(tick);
+			}
+		}
+	}
+
+	/**
+	 * Write the record header and make room for the payload
+	 * @return null if not recording or the buffer is full
+	 */
+	private ByteBuffer Reserve(byte type, int payload)
+	{
+		if (!recording)
+		{
+			return null;
+		}
+		if (front.remaining() < RECORD_HEADER + payload)
+		{
+			dropped++;
+			return null;
+		}
+		return front.put(type).putLong(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Swap buffers and append the filled one to the file, runs on the executor only
+	 * @param target Channel of the session the flush was scheduled for
+	 */
+	private void Flush(FileChannel target)
+	{
+		ByteBuffer full;
+		synchronized (this)
+		{
+			if (target != channel)
+			{
+				//session has stopped, its remaining records are written by Stop
+				return;
+			}
+			full = front;
+			front = back;
+			back = full;
+		}
+		Write(target, full);
+	}
+
+	private static void Write(FileChannel target, ByteBuffer buffer)
+	{
+		buffer.flip();
+		try
+		{
+			while (buffer.hasRemaining())
+			{
+				target.write(buffer);
+			}
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to write tracker recording", e);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.awt.Color;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Value;
+import net.runelite.client.util.Text;
+
+import static com.partyspecialtracker.PartySpecialTrackerConfig.TextRenderType;
+
+/**
+ * Immutable copy of {@link PartySpecialTrackerConfig}, read without going through the config proxy.<br>
+ * A change replaces the whole object, so a reader holding one reference sees a consistent set of values.
+ */
+@Value
+@Builder(toBuilder = true)
+class PartySpecialTrackerSettings
+{
+	/*incremented on every change, used to invalidate rendered labels*/
+	int revision;
+
+	boolean trackMe;
+	boolean showAsTracker;
+	/*lower case names, empty shows every member*/
+	List<String> visiblePlayers;
+	int desiredSpecial;
+	Color standardColor;
+	Color lowColor;
+	int tickDisplay;
+	TextRenderType nameRender;
+	TextRenderType specRender;
+	boolean drawPercentByName;
+	boolean drawParentheses;
+	int offSetTextHorizontal;
+	int offSetTextVertical;
+	int offSetTextZ;
+	int offSetStackVertical;
+	int fontSize;
+	boolean boldFont;
+	int maxDistance;
+	boolean spreadLabels;
+	boolean dimXfer;
+	int desiredLocal;
+	int dimAmount;
+	boolean sendSpecialUpdates;
+	boolean debugOverlay;
+	boolean recordSession;
+	int memberTimeout;
+	int maxMembers;
+	boolean sidePanel;
+
+	/**
+	 * Read every config value
+	 */
+	static PartySpecialTrackerSettings Load(PartySpecialTrackerConfig config, int revision)
+	{
+		return PartySpecialTrackerSettings.builder()
+			.revision(revision)
+			.trackMe(config.getTrackMe())
+			.showAsTracker(config.getShowAsTracker())
+			.visiblePlayers(ParseVisiblePlayers(config.getVisiblePlayers()))
+			.desiredSpecial(config.getDesiredSpecial())
+			.standardColor(config.getStandardColor())
+			.lowColor(config.getLowColor())
+			.tickDisplay(config.getTickDisplay())
+			.nameRender(config.nameRender())
+			.specRender(config.specRender())
+			.drawPercentByName(config.drawPercentByName())
+			.drawParentheses(config.drawParentheses())
+			.offSetTextHorizontal(config.offSetTextHorizontal())
+			.offSetTextVertical(config.offSetTextVertial())
+			.offSetTextZ(config.offSetTextZ())
+			.offSetStackVertical(config.offSetStackVertical())
+			.fontSize(config.fontSize())
+			.boldFont(config.boldFont())
+			.maxDistance(config.maxDistance())
+			.spreadLabels(config.spreadLabels())
+			.dimXfer(config.dimXfer())
+			.desiredLocal(config.desiredLocal())
+			.dimAmount(config.dimAmount())
+			.sendSpecialUpdates(config.sendSpecialUpdates())
+			.debugOverlay(config.debugOverlay())
+			.recordSession(config.recordSession())
+			.memberTimeout(config.memberTimeout())
+			.maxMembers(config.maxMembers())
+			.sidePanel(config.sidePanel())
+			.build();
+	}
+
+	/**
+	 * Copy with only the changed config value re-read, unknown keys re-read everything
+	 * @param key Key of the {@link net.runelite.client.events.ConfigChanged} event
+	 */
+	PartySpecialTrackerSettings Update(String key, PartySpecialTrackerConfig config)
+	{
+		PartySpecialTrackerSettingsBuilder builder = toBuilder().revision(revision + 1);
+		switch (key)
+		{
+			case "trackMe": builder.trackMe(config.getTrackMe()); break;
+			case "showAsTracker": builder.showAsTracker(config.getShowAsTracker()); break;
+			case "visiblePlayers": builder.visiblePlayers(ParseVisiblePlayers(config.getVisiblePlayers())); break;
+			case "desiredSpecial": builder.desiredSpecial(config.getDesiredSpecial()); break;
+			case "standardColor": builder.standardColor(config.getStandardColor()); break;
+			case "lowColor": builder.lowColor(config.getLowColor()); break;
+			case "tickDisplay": builder.tickDisplay(config.getTickDisplay()); break;
+			case "nameRender": builder.nameRender(config.nameRender()); break;
+			case "specRender": builder.specRender(config.specRender()); break;
+			case "drawPercentByName": builder.drawPercentByName(config.drawPercentByName()); break;
+			case "drawParentheses": builder.drawParentheses(config.drawParentheses()); break;
+			case "offSetTextHorizontal": builder.offSetTextHorizontal(config.offSetTextHorizontal()); break;
+			case "offSetTextVertical": builder.offSetTextVertical(config.offSetTextVertial()); break;
+			case "offSetTextZ": builder.offSetTextZ(config.offSetTextZ()); break;
+			case "offSetStackVertical": builder.offSetStackVertical(config.offSetStackVertical()); break;
+			case "fontSize": builder.fontSize(config.fontSize()); break;
+			case "boldFont": builder.boldFont(config.boldFont()); break;
+			case "maxDistance": builder.maxDistance(config.maxDistance()); break;
+			case "spreadLabels": builder.spreadLabels(config.spreadLabels()); break;
+			case "dimXfer": builder.dimXfer(config.dimXfer()); break;
+			case "desiredLocal": builder.desiredLocal(config.desiredLocal()); break;
+			case "dimAmount": builder.dimAmount(config.dimAmount()); break;
+			case "sendSpecialUpdates": builder.sendSpecialUpdates(config.sendSpecialUpdates()); break;
+			case "debugOverlay": builder.debugOverlay(config.debugOverlay()); break;
+			case "recordSession": builder.recordSession(config.recordSession()); break;
+			case "memberTimeout": builder.memberTimeout(config.memberTimeout()); break;
+			case "maxMembers": builder.maxMembers(config.maxMembers()); break;
+			case "sidePanel": builder.sidePanel(config.sidePanel()); break;
+			default: return Load(config, revision + 1);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Check if a special value surpasses player-chosen config
+	 * @param specialValue Current special of a given party member
+	 */
+	boolean HasDesiredSpecial(int specialValue)
+	{
+		return specialValue >= desiredSpecial;
+	}
+
+	/**
+	 * Parse config list of player names and convert into a list of strings.<br>
+	 * Used to determine which tracked players you want to see.
+	 */
+	static List<String> ParseVisiblePlayers(String configPlayers)
+	{
+		configPlayers = configPlayers.toLowerCase();
+
+		if (configPlayers.isEmpty())
+		{
+			return Collections.emptyList();
+		}
+
+		return Collections.unmodifiableList(Text.fromCSV(configPlayers));
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.awt.Color;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.Value;
+
+/**
+ * Immutable render state of the party, built once per game tick and swapped in for the overlay as a whole.<br>
+ * The overlay reads only from the snapshot, so a frame never sees a half-applied update.
+ */
+@Value
+class PartySpecialTrackerSnapshot
+{
+	static final PartySpecialTrackerSnapshot EMPTY = new PartySpecialTrackerSnapshot(false, 0, 12, true, 0, 0, 0, 0, 0, false, new Entry[0]);
+
+	/*false when the local player is tracking and not shown as a tracker*/
+	boolean visible;
+	int gameCycle;
+	int fontSize;
+	boolean boldFont;
+	int offSetTextHorizontal;
+	int offSetTextVertical;
+	int offSetTextZ;
+	int offSetStackVertical;
+	/*tiles from the local player members are drawn within, 0 for no limit*/
+	int maxDistance;
+	/*move labels off of overlapping labels, see PartySpecialTrackerLabelGrid*/
+	boolean spreadLabels;
+	/*only members that pass the visible player and render text checks*/
+	Entry[] entries;
+
+	/**
+	 * Render state of a single member, reused between snapshots while nothing about the member has changed.
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	static class Entry
+	{
+		private final String name;
+		private final String displayName;
+		private final int special;
+		private final int ticksSinceDrain;
+		private final int configRevision;
+		private final Color color;
+		private final boolean lingeringTick;
+		private final String labelText;
+		private final String tickText;
+
+		/*built lazily by the overlay on first draw, render thread only*/
+		@Setter
+		private PartySpecialTrackerLabelCache.Sprite sprite;
+
+		boolean Matches(String displayName, int special, int ticksSinceDrain, int configRevision)
+		{
+			return this.displayName == displayName && this.special == special && this.ticksSinceDrain == ticksSinceDrain && this.configRevision == configRevision;
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.util.Arrays;
+
+/**
+ * Per-frame count of tracked players on each tile, used to stack labels of players sharing a tile.<br>
+ * Open-addressing map of packed (x, y, plane) to count, cleared in O(1) between frames by bumping a generation stamp.
+ */
+class PartySpecialTrackerTileIndex
+{
+	private static final int INITIAL_CAPACITY = 64;
+
+	private int[] keys = new int[INITIAL_CAPACITY];
+	private int[] counts = new int[INITIAL_CAPACITY];
+	private int[] stamps = new int[INITIAL_CAPACITY];
+	private int stamp = 1;
+	private int size;
+
+	/**
+	 * Forget every tile, storage is kept for the next frame.
+	 */
+	void Clear()
+	{
+		if (++stamp == 0)
+		{
+			//generation wrapped, old slots could appear live again
+			Arrays.fill(stamps, 0);
+			stamp = 1;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Add a player to a tile
+	 * @return The number of players already on the tile
+	 */
+	int Add(int x, int y, int plane)
+	{
+		return Add(Pack(x, y, plane));
+	}
+
+	/**
+	 * Add a player to a tile
+	 * @param key Tile packed with {@link #Pack(int, int, int)}
+	 * @return The number of players already on the tile
+	 */
+	int Add(int key)
+	{
+		if ((size + 1) * 2 > keys.length)
+		{
+			Grow();
+		}
+
+		int mask = keys.length - 1;
+		int slot = Hash(key) & mask;
+		while (stamps[slot] == stamp)
+		{
+			if (keys[slot] == key)
+			{
+				return counts[slot]++;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		stamps[slot] = stamp;
+		keys[slot] = key;
+		counts[slot] = 1;
+		size++;
+		return 0;
+	}
+
+	/**
+	 * World coordinates fit in 14 bits and plane in 2.
+	 */
+	static int Pack(int x, int y, int plane)
+	{
+		return ((plane & 0x3) << 28) | ((x & 0x3FFF) << 14) | (y & 0x3FFF);
+	}
+
+	private static int Hash(int key)
+	{
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private void Grow()
+	{
+		int[] oldKeys = keys;
+		int[] oldCounts = counts;
+		int[] oldStamps = stamps;
+		int oldStamp = stamp;
+
+		int capacity = oldKeys.length * 2;
+		keys = new int[capacity];
+		counts = new int[capacity];
+		stamps = new int[capacity];
+		stamp = 1;
+
+		int mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldStamps[i] != oldStamp)
+			{
+				continue;
+			}
+			int slot = Hash(oldKeys[i]) & mask;
+			while (stamps[slot] == stamp)
+			{
+				slot = (slot + 1) & mask;
+			}
+			stamps[slot] = stamp;
+			keys[slot] = oldKeys[i];
+			counts[slot] = oldCounts[i];
+		}
+	}
+}
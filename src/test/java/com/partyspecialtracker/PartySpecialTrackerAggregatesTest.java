@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PartySpecialTrackerAggregatesTest
+{
+	private final PartySpecialTrackerMemberStore store = new PartySpecialTrackerMemberStore();
+	private final PartySpecialTrackerAggregates aggregates = new PartySpecialTrackerAggregates();
+
+	private PartySpecialTrackerMember alice;
+	private PartySpecialTrackerMember bob;
+	private PartySpecialTrackerMember carol;
+
+	@Before
+	public void setUp()
+	{
+		alice = Member("alice", 1L, 80);
+		bob = Member("bob", 2L, 30);
+		carol = Member("carol", 3L, 30);
+		aggregates.SetThreshold(50);
+	}
+
+	@Test
+	public void totalsOfMembers()
+	{
+		PartySpecialTrackerAggregates.Totals totals = aggregates.Publish();
+
+		assertEquals(3, totals.getMembers());
+		assertEquals(140, totals.getTotalSpecial());
+		assertEquals(2, totals.getBelowDesired());
+		assertEquals(30, totals.getLowestSpecial());
+	}
+
+	@Test
+	public void publishOnlyWhenChanged()
+	{
+		aggregates.Publish();
+		assertNull(aggregates.Publish());
+
+		aggregates.Update(alice, 80);
+		aggregates.SetThreshold(50);
+		aggregates.SetDraining(0);
+		assertNull(aggregates.Publish());
+
+		aggregates.SetDraining(2);
+		assertEquals(2, aggregates.Publish().getDraining());
+	}
+
+	@Test
+	public void updateMovesMemberBetweenBuckets()
+	{
+		aggregates.Update(bob, 90);
+		aggregates.Update(carol, 10);
+
+		PartySpecialTrackerAggregates.Totals totals = aggregates.Publish();
+		assertEquals(180, totals.getTotalSpecial());
+		assertEquals(1, totals.getBelowDesired());
+		assertEquals("carol", totals.getLowestName());
+		assertEquals(10, totals.getLowestSpecial());
+	}
+
+	@Test
+	public void removeLowestFallsBackToNextBucket()
+	{
+		aggregates.Remove(bob);
+		assertEquals("carol", aggregates.Publish().getLowestName());
+
+		aggregates.Remove(carol);
+		PartySpecialTrackerAggregates.Totals totals = aggregates.Publish();
+		assertEquals(1, totals.getMembers());
+		assertEquals(80, totals.getTotalSpecial());
+		assertEquals(0, totals.getBelowDesired());
+		assertEquals("alice", totals.getLowestName());
+		assertEquals(80, totals.getLowestSpecial());
+
+		aggregates.Remove(alice);
+		totals = aggregates.Publish();
+		assertEquals(0, totals.getMembers());
+		assertNull(totals.getLowestName());
+		assertEquals(-1, totals.getLowestSpecial());
+	}
+
+	@Test
+	public void removeUntrackedMemberIsIgnored()
+	{
+		aggregates.Remove(bob);
+		aggregates.Remove(bob);
+
+		assertEquals(2, aggregates.Publish().getMembers());
+	}
+
+	@Test
+	public void thresholdRecountsFromBuckets()
+	{
+		aggregates.SetThreshold(31);
+		assertEquals(2, aggregates.Publish().getBelowDesired());
+
+		aggregates.SetThreshold(30);
+		assertEquals(0, aggregates.Publish().getBelowDesired());
+
+		aggregates.SetThreshold(100);
+		assertEquals(3, aggregates.Publish().getBelowDesired());
+	}
+
+	@Test
+	public void specialIsClamped()
+	{
+		aggregates.Update(alice, 150);
+		aggregates.Update(bob, -20);
+
+		PartySpecialTrackerAggregates.Totals totals = aggregates.Publish();
+		assertEquals(130, totals.getTotalSpecial());
+		assertEquals("bob", totals.getLowestName());
+		assertEquals(0, totals.getLowestSpecial());
+	}
+
+	@Test
+	public void clearForgetsMembers()
+	{
+		aggregates.Clear();
+
+		PartySpecialTrackerAggregates.Totals totals = aggregates.Publish();
+		assertEquals(0, totals.getMembers());
+		assertEquals(0, totals.getTotalSpecial());
+		assertNull(totals.getLowestName());
+	}
+
+	private PartySpecialTrackerMember Member(String name, long memberId, int special)
+	{
+		PartySpecialTrackerMember member = new PartySpecialTrackerMember(store, name, memberId, special);
+		aggregates.Update(member, special);
+		return member;
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PartySpecialTrackerHistoryTest
+{
+	@Test
+	public void countDrainsSinceIncludesFromTick()
+	{
+		PartySpecialTrackerHistory history = new PartySpecialTrackerHistory();
+		history.Append(10, 50, true);
+		history.Append(20, 60, false);
+		history.Append(30, 10, true);
+		history.Append(40, 0, true);
+
+		assertEquals(3, history.CountDrainsSince(0, 40));
+		assertEquals(2, history.CountDrainsSince(30, 40));
+		assertEquals(2, history.CountDrainsSince(11, 40));
+		assertEquals(1, history.CountDrainsSince(40, 40));
+		assertEquals(0, history.CountDrainsSince(41, 41));
+	}
+
+	@Test
+	public void countDrainsSinceAfterWrapping()
+	{
+		PartySpecialTrackerHistory history = new PartySpecialTrackerHistory();
+		int samples = PartySpecialTrackerHistory.CAPACITY + 50;
+		for (int tick = 0; tick < samples; tick++)
+		{
+			history.Append(tick, 50, tick % 2 == 0);
+		}
+
+		assertEquals(PartySpecialTrackerHistory.CAPACITY, history.Size());
+		//oldest samples were overwritten, only the last CAPACITY ticks remain
+		assertEquals(PartySpecialTrackerHistory.CAPACITY / 2, history.CountDrainsSince(0, samples));
+		assertEquals(5, history.CountDrainsSince(samples - 10, samples));
+		assertEquals(0, history.CountDrainsSince(samples, samples));
+	}
+
+	@Test
+	public void ticksSinceFullSpecial()
+	{
+		PartySpecialTrackerHistory history = new PartySpecialTrackerHistory();
+		assertEquals(-1, history.TicksSinceFullSpecial(5));
+
+		history.Append(5, 100, false);
+		history.Append(8, 50, true);
+		assertEquals(10, history.TicksSinceFullSpecial(15));
+
+		history.Append(20, 100, false);
+		assertEquals(0, history.TicksSinceFullSpecial(20));
+		//no update since, special is still full
+		assertEquals(0, history.TicksSinceFullSpecial(60));
+	}
+
+	@Test
+	public void ticksSinceFullSpecialAfterWrapping()
+	{
+		PartySpecialTrackerHistory history = new PartySpecialTrackerHistory();
+		history.Append(0, 100, false);
+		for (int tick = 1; tick <= PartySpecialTrackerHistory.CAPACITY; tick++)
+		{
+			history.Append(tick, 50, false);
+		}
+
+		//the full bar was overwritten
+		assertEquals(-1, history.TicksSinceFullSpecial(PartySpecialTrackerHistory.CAPACITY));
+	}
+
+	@Test
+	public void appendAfterTicksRestartDropsEarlierSession()
+	{
+		PartySpecialTrackerHistory history = new PartySpecialTrackerHistory();
+		history.Append(5000, 100, false);
+		history.Append(5010, 50, true);
+
+		//logged back in, the tick count has restarted
+		history.Append(3, 40, true);
+
+		assertEquals(1, history.Size());
+		assertEquals(1, history.CountDrainsSince(0, 3));
+		assertEquals(-1, history.TicksSinceFullSpecial(3));
+	}
+
+	@Test
+	public void queryAfterTicksRestartDropsEarlierSession()
+	{
+		PartySpecialTrackerHistory history = new PartySpecialTrackerHistory();
+		history.Append(5000, 100, false);
+		history.Append(5010, 50, true);
+
+		assertEquals(-1, history.TicksSinceFullSpecial(12));
+		assertEquals(0, history.Size());
+		assertEquals(0, history.CountDrainsSince(0, 12));
+	}
+}
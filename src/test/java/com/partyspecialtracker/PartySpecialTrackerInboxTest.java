@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PartySpecialTrackerInboxTest
+{
+	@Test
+	public void pollsInOfferOrderAcrossLaps()
+	{
+		PartySpecialTrackerInbox inbox = new PartySpecialTrackerInbox(4);
+		for (int i = 0; i < 20; i++)
+		{
+			assertTrue(inbox.Offer(i));
+			assertTrue(inbox.Offer(i + 100));
+			assertEquals(i, inbox.Poll());
+			assertEquals(i + 100, inbox.Poll());
+		}
+		assertNull(inbox.Poll());
+	}
+
+	@Test
+	public void offerFailsOnceFull()
+	{
+		//rounded up to 8
+		PartySpecialTrackerInbox inbox = new PartySpecialTrackerInbox(5);
+		for (int i = 0; i < 8; i++)
+		{
+			assertTrue(inbox.Offer(i));
+		}
+		assertFalse(inbox.Offer(8));
+
+		assertEquals(0, inbox.Poll());
+		assertTrue(inbox.Offer(8));
+	}
+
+	@Test
+	public void controlEventsOverflowInsteadOfDropping()
+	{
+		PartySpecialTrackerInbox inbox = new PartySpecialTrackerInbox(2);
+		inbox.OfferControl("a");
+		inbox.OfferControl("b");
+		inbox.OfferControl("c");
+		inbox.OfferControl("d");
+
+		assertEquals("a", inbox.Poll());
+		assertEquals("b", inbox.Poll());
+		assertEquals("c", inbox.Poll());
+		assertEquals("d", inbox.Poll());
+		assertNull(inbox.Poll());
+	}
+
+	@Test
+	public void latestKeepsOneMergedEventPerMember()
+	{
+		PartySpecialTrackerInbox inbox = new PartySpecialTrackerInbox(4);
+		inbox.OfferLatest(1L, "a1", (pending, newer) -> pending + "+" + newer);
+		inbox.OfferLatest(1L, "a2", (pending, newer) -> pending + "+" + newer);
+		inbox.OfferLatest(2L, "b1", (pending, newer) -> pending + "+" + newer);
+		inbox.OfferLatest(3L, "c1", (pending, newer) -> pending + "+" + newer);
+		inbox.DiscardLatest(3L);
+
+		Set<Object> drained = new HashSet<>();
+		inbox.DrainLatest(drained::add);
+
+		assertEquals(new HashSet<>(List.of("a1+a2", "b1")), drained);
+
+		drained.clear();
+		inbox.DrainLatest(drained::add);
+		assertTrue(drained.isEmpty());
+	}
+
+	@Test
+	public void clearDiscardsEveryLane()
+	{
+		PartySpecialTrackerInbox inbox = new PartySpecialTrackerInbox(2);
+		inbox.OfferControl("a");
+		inbox.OfferControl("b");
+		inbox.OfferControl("c");
+		inbox.OfferLatest(1L, "d", (pending, newer) -> newer);
+
+		inbox.Clear();
+
+		assertNull(inbox.Poll());
+		List<Object> drained = new ArrayList<>();
+		inbox.DrainLatest(drained::add);
+		assertTrue(drained.isEmpty());
+	}
+
+	@Test
+	public void concurrentProducersDeliverEachEventOnce() throws InterruptedException
+	{
+		int producers = 4;
+		int perProducer = 50_000;
+		PartySpecialTrackerInbox inbox = new PartySpecialTrackerInbox(64);
+		CountDownLatch start = new CountDownLatch(1);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++)
+		{
+			int producer = p;
+			Thread thread = new Thread(() ->
+			{
+				try
+				{
+					start.await();
+				}
+				catch (InterruptedException e)
+				{
+					return;
+				}
+				for (int i = 0; i < perProducer; i++)
+				{
+					Integer event = producer * perProducer + i;
+					while (!inbox.Offer(event))
+					{
+						Thread.yield();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+
+		boolean[] seen = new boolean[producers * perProducer];
+		int[] lastOfProducer = new int[producers];
+		Arrays.fill(lastOfProducer, -1);
+		int received = 0;
+		while (received < seen.length)
+		{
+			Object event = inbox.Poll();
+			if (event == null)
+			{
+				Thread.yield();
+				continue;
+			}
+			int value = (Integer) event;
+			assertFalse("duplicate " + value, seen[value]);
+			seen[value] = true;
+
+			//events of one producer keep their order
+			int producer = value / perProducer;
+			assertTrue(value > lastOfProducer[producer]);
+			lastOfProducer[producer] = value;
+			received++;
+		}
+
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+		assertNull(inbox.Poll());
+	}
+}
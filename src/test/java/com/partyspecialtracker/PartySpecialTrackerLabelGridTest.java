@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PartySpecialTrackerLabelGridTest
+{
+	private static final int WIDTH = 40;
+	private static final int HEIGHT = 16;
+
+	private final PartySpecialTrackerLabelGrid grid = new PartySpecialTrackerLabelGrid();
+
+	@Before
+	public void setUp()
+	{
+		grid.Clear(0, 0, 512, 334);
+	}
+
+	@Test
+	public void freeSpotIsKept()
+	{
+		assertEquals(100, grid.Place(100, 100, WIDTH, HEIGHT));
+		//beside the first label
+		assertEquals(100, grid.Place(100 + WIDTH + PartySpecialTrackerLabelGrid.CELL_SIZE, 100, WIDTH, HEIGHT));
+	}
+
+	@Test
+	public void overlappingLabelMovesAbove()
+	{
+		grid.Place(100, 100, WIDTH, HEIGHT);
+
+		//moved clear of the row the first label starts in
+		int top = grid.Place(110, 100, WIDTH, HEIGHT);
+		assertEquals(96 - HEIGHT, top);
+	}
+
+	@Test
+	public void labelLeftInPlaceAfterMaxAttempts()
+	{
+		int top = 200;
+		for (int i = 0; i < PartySpecialTrackerLabelGrid.MAX_ATTEMPTS; i++)
+		{
+			int placed = grid.Place(100, top, WIDTH, HEIGHT);
+			assertEquals(top - HEIGHT * i, placed);
+		}
+		assertEquals(top, grid.Place(100, top, WIDTH, HEIGHT));
+	}
+
+	@Test
+	public void clearFreesEveryCell()
+	{
+		grid.Place(100, 100, WIDTH, HEIGHT);
+
+		grid.Clear(0, 0, 512, 334);
+
+		assertEquals(100, grid.Place(100, 100, WIDTH, HEIGHT));
+	}
+
+	@Test
+	public void labelsOutsideViewportDoNotFail()
+	{
+		assertEquals(-50, grid.Place(-100, -50, WIDTH, HEIGHT));
+		assertEquals(1000, grid.Place(1000, 1000, WIDTH, HEIGHT));
+	}
+
+	@Test
+	public void viewportOriginIsRespected()
+	{
+		grid.Clear(4, 4, 512, 334);
+		grid.Place(100, 100, WIDTH, HEIGHT);
+
+		//rows start at the viewport top
+		assertEquals(4 + 12 * PartySpecialTrackerLabelGrid.CELL_SIZE - HEIGHT, grid.Place(100, 100, WIDTH, HEIGHT));
+	}
+}
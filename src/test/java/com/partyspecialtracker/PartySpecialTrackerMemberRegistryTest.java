@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PartySpecialTrackerMemberRegistryTest
+{
+	private final List<PartySpecialTrackerMember> removed = new ArrayList<>();
+	private PartySpecialTrackerMemberRegistry registry;
+
+	@Before
+	public void setUp()
+	{
+		registry = new PartySpecialTrackerMemberRegistry(removed::add);
+	}
+
+	@Test
+	public void updateCreatesMember()
+	{
+		PartySpecialTrackerMember member = registry.Update("alice", 1L, 70);
+
+		assertSame(member, registry.GetById(1L));
+		assertSame(member, registry.GetByName("alice"));
+		assertEquals(70, member.getCurrentSpecial());
+		assertEquals(1, registry.Size());
+	}
+
+	@Test
+	public void updateExistingMemberLeavesSpecial()
+	{
+		PartySpecialTrackerMember member = registry.Update("alice", 1L, 70);
+
+		assertSame(member, registry.Update("alice", 1L, 20));
+		assertEquals(70, member.getCurrentSpecial());
+	}
+
+	@Test
+	public void rejoinUnderNewMemberIdKeepsMember()
+	{
+		PartySpecialTrackerMember member = registry.Update("alice", 1L, 70);
+
+		assertSame(member, registry.Update("alice", 2L, 20));
+		assertNull(registry.GetById(1L));
+		assertSame(member, registry.GetById(2L));
+		assertEquals(2L, member.getMemberID());
+		assertEquals(70, member.getCurrentSpecial());
+		assertEquals(1, registry.Size());
+		assertTrue(removed.isEmpty());
+	}
+
+	@Test
+	public void renameMovesNameIndex()
+	{
+		PartySpecialTrackerMember member = registry.Update("alice", 1L, 70);
+
+		assertSame(member, registry.Update("bob", 1L, 70));
+		assertNull(registry.GetByName("alice"));
+		assertSame(member, registry.GetByName("bob"));
+		assertEquals("bob", member.getName());
+		assertTrue(removed.isEmpty());
+	}
+
+	@Test
+	public void renameOntoTrackedNameDisplacesOtherMember()
+	{
+		PartySpecialTrackerMember alice = registry.Update("alice", 1L, 70);
+		PartySpecialTrackerMember bob = registry.Update("bob", 2L, 30);
+
+		registry.Update("bob", 1L, 70);
+
+		assertSame(alice, registry.GetByName("bob"));
+		assertNull(registry.GetByName("alice"));
+		assertNull(registry.GetById(2L));
+		assertEquals(1, registry.Size());
+		assertEquals(1, removed.size());
+		assertSame(bob, removed.get(0));
+		assertEquals(-1, bob.getSlot());
+	}
+
+	@Test
+	public void removeByIdNotifiesAndReleases()
+	{
+		PartySpecialTrackerMember member = registry.Update("alice", 1L, 70);
+
+		assertSame(member, registry.RemoveById(1L));
+		assertNull(registry.GetById(1L));
+		assertNull(registry.GetByName("alice"));
+		assertEquals(0, registry.Size());
+		assertEquals(-1, member.getSlot());
+		assertSame(member, removed.get(0));
+		assertNull(registry.RemoveById(1L));
+	}
+
+	@Test
+	public void clearDoesNotNotify()
+	{
+		registry.Update("alice", 1L, 70);
+		registry.Update("bob", 2L, 30);
+
+		registry.Clear();
+
+		assertEquals(0, registry.Size());
+		assertNull(registry.GetById(1L));
+		assertTrue(removed.isEmpty());
+	}
+
+	/**
+	 * Removal shifts colliding entries back, every remaining id must still be found however the probes overlapped
+	 */
+	@Test
+	public void removeKeepsCollidingIdsReachable()
+	{
+		Random random = new Random(42);
+		Map<Long, PartySpecialTrackerMember> expected = new HashMap<>();
+		for (int i = 0; i < 5_000; i++)
+		{
+			//small id range so ids are reused and probe runs overlap
+			long memberId = random.nextInt(64);
+			if (random.nextBoolean())
+			{
+				expected.put(memberId, registry.Update("member" + memberId, memberId, 50));
+			}
+			else
+			{
+				assertSame(expected.remove(memberId), registry.RemoveById(memberId));
+			}
+
+			for (long id = 0; id < 64; id++)
+			{
+				assertSame("memberId " + id + " after " + i + " operations", expected.get(id), registry.GetById(id));
+			}
+		}
+		assertEquals(expected.size(), registry.Size());
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PartySpecialTrackerMemberTest
+{
+	private final PartySpecialTrackerMember member = new PartySpecialTrackerMember(new PartySpecialTrackerMemberStore(), "alice", 1L, 50);
+
+	@Test
+	public void predictsRegenerationAfterObservedStep()
+	{
+		member.ConfirmSpecial(50, 100, true);
+		member.ConfirmSpecial(60, 110, true);
+
+		assertEquals(60, member.PredictSpecial(159));
+		assertEquals(70, member.PredictSpecial(160));
+		assertEquals(100, member.PredictSpecial(110 + 10 * PartySpecialTrackerMember.REGEN_INTERVAL));
+	}
+
+	@Test
+	public void resetPredictionStopsExtrapolating()
+	{
+		member.ConfirmSpecial(50, 100, true);
+		member.ConfirmSpecial(60, 110, true);
+
+		member.ResetPrediction();
+
+		assertEquals(60, member.PredictSpecial(1000));
+
+		//a confirmed special alone isn't a regeneration step
+		member.ConfirmSpecial(60, 1000, true);
+		assertEquals(60, member.PredictSpecial(2000));
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PartySpecialTrackerMetricsTest
+{
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	public void rollReportsOnlyTheLastInterval()
+	{
+		PartySpecialTrackerMetrics.Histogram histogram = new PartySpecialTrackerMetrics.Histogram();
+		histogram.Roll(SECOND);
+
+		histogram.Record(100_000);
+		histogram.Record(100_000);
+		histogram.Roll(2 * SECOND);
+		assertEquals(2, histogram.Count());
+		assertEquals(100_000, histogram.Max());
+		assertEquals(131_072, histogram.Percentile(0.5));
+		assertEquals(2, histogram.getRate(), 0.001);
+
+		//a spike is forgotten once a quieter interval is rolled
+		histogram.Record(50);
+		histogram.Roll(3 * SECOND);
+		assertEquals(1, histogram.Count());
+		assertEquals(50, histogram.Max());
+		assertEquals(64, histogram.Percentile(0.99));
+		assertEquals(1, histogram.getRate(), 0.001);
+	}
+
+	@Test
+	public void nothingIsReportedBeforeTheFirstRoll()
+	{
+		PartySpecialTrackerMetrics.Histogram histogram = new PartySpecialTrackerMetrics.Histogram();
+		histogram.Record(1_000);
+
+		assertEquals(0, histogram.Count());
+		assertEquals(0, histogram.Percentile(0.5));
+		assertEquals(0, histogram.getRate(), 0.001);
+	}
+}
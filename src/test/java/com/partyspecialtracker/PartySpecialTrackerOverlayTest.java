@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.runelite.api.Client;
+import net.runelite.api.Constants;
+import net.runelite.api.Player;
+import net.runelite.api.Scene;
+import net.runelite.api.WorldView;
+import net.runelite.api.coords.LocalPoint;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Steady state frames of the overlay must stay within the allocations the client API forces on it.<br>
+ * Client and players are proxies answering from fixed values, so everything measured is the overlays own code and the drawing.
+ * Players return the same LocalPoint each frame, the real client allocates one per call which is left out of the measurement.
+ * {@link net.runelite.api.Perspective#localToCanvas} returns a new Point for each label, which is allowed for.
+ */
+public class PartySpecialTrackerOverlayTest
+{
+	private static final int PARTY_SIZE = 16;
+	private static final int WARMUP_FRAMES = 2_000;
+	private static final int MEASURED_FRAMES = 1_000;
+	/*room for the projected Point of each label, anything layout or label rendering allocated per frame would exceed it*/
+	private static final long BYTES_PER_LABEL = 32;
+
+	private PartySpecialTrackerOverlay overlay;
+	private Graphics2D graphics;
+
+	@Before
+	public void setUp()
+	{
+		int center = Constants.SCENE_SIZE / 2 * 128;
+		Map<String, Object> clientValues = new HashMap<>();
+		clientValues.put("getPlane", 0);
+		clientValues.put("getGameCycle", 10);
+		clientValues.put("getViewportXOffset", 4);
+		clientValues.put("getViewportYOffset", 4);
+		clientValues.put("getViewportWidth", 512);
+		clientValues.put("getViewportHeight", 334);
+		clientValues.put("getCameraX", center);
+		clientValues.put("getCameraY", center - 1600);
+		clientValues.put("getCameraZ", -1500);
+		clientValues.put("getCameraPitch", 256);
+		clientValues.put("getCameraYaw", 0);
+		clientValues.put("getScale", 512);
+		Map<String, Object> sceneValues = new HashMap<>();
+		sceneValues.put("getTileHeights", new int[Constants.MAX_Z][Constants.SCENE_SIZE + 1][Constants.SCENE_SIZE + 1]);
+		sceneValues.put("getTileSettings", new byte[Constants.MAX_Z][Constants.SCENE_SIZE][Constants.SCENE_SIZE]);
+		Scene scene = proxy(Scene.class, sceneValues);
+		clientValues.putAll(sceneValues);
+		clientValues.put("getScene", scene);
+		Map<String, Object> worldViewValues = new HashMap<>(sceneValues);
+		worldViewValues.put("getScene", scene);
+		worldViewValues.put("getPlane", 0);
+		WorldView worldView = proxy(WorldView.class, worldViewValues);
+		clientValues.put("getTopLevelWorldView", worldView);
+		clientValues.put("getWorldView", worldView);
+		clientValues.put("getLocalPlayer", player("Local", new LocalPoint(center, center)));
+		Client client = proxy(Client.class, clientValues);
+
+		PartySpecialTrackerPlugin plugin = new PartySpecialTrackerPlugin();
+		PartySpecialTrackerSnapshot.Entry[] entries = new PartySpecialTrackerSnapshot.Entry[PARTY_SIZE];
+		for (int i = 0; i < PARTY_SIZE; i++)
+		{
+			String name = "Member" + i;
+			//pairs of members share a tile so labels stack
+			plugin.IndexPlayer(player(name, new LocalPoint(center + (i / 2 - 4) * 128 + 64, center + 64)));
+			entries[i] = new PartySpecialTrackerSnapshot.Entry(name, name, 50, i % 3 == 0 ? 3 : -1, 0, Color.CYAN, i % 3 == 0, name + " 50%", i % 3 == 0 ? " 3" : "");
+		}
+		plugin.setSnapshot(new PartySpecialTrackerSnapshot(true, 0, 12, true, 0, 0, 0, 50, 10, true, entries));
+
+		overlay = new PartySpecialTrackerOverlay(client, plugin);
+		graphics = new BufferedImage(765, 503, BufferedImage.TYPE_INT_ARGB).createGraphics();
+	}
+
+	@Test
+	public void renderAllocatesOnlyProjectedPoints()
+	{
+		com.sun.management.ThreadMXBean threads = threadMXBean();
+		assumeTrue(threads != null && threads.isThreadAllocatedMemoryEnabled());
+
+		//first frames lay out and draw the labels, after that only the drawing is repeated
+		for (int i = 0; i < WARMUP_FRAMES; i++)
+		{
+			overlay.render(graphics);
+		}
+
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < MEASURED_FRAMES; i++)
+		{
+			overlay.render(graphics);
+		}
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+		long allowed = MEASURED_FRAMES * PARTY_SIZE * BYTES_PER_LABEL;
+		assertTrue("allocated " + allocated + " bytes over " + MEASURED_FRAMES + " frames, at most " + allowed + " expected", allocated <= allowed);
+	}
+
+	private static com.sun.management.ThreadMXBean threadMXBean()
+	{
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		return threads instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) threads : null;
+	}
+
+	private static Player player(String name, LocalPoint location)
+	{
+		Map<String, Object> values = new HashMap<>();
+		values.put("getName", name);
+		values.put("getLocalLocation", location);
+		return proxy(Player.class, values);
+	}
+
+	/**
+	 * Interface answering each method from a fixed value, the values are boxed up front so calls don't allocate
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, Map<String, Object> values)
+	{
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				case "toString":
+					return type.getSimpleName() + values.get("getName");
+				default:
+					if (!values.containsKey(method.getName()))
+					{
+						throw new UnsupportedOperationException(method.getName());
+					}
+					return values.get(method.getName());
+			}
+		});
+	}
+}
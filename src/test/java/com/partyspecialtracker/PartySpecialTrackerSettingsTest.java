@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import java.awt.Color;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Objects;
+
+import net.runelite.client.config.ConfigItem;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PartySpecialTrackerSettingsTest
+{
+	private final PartySpecialTrackerConfig defaults = new PartySpecialTrackerConfig()
+	{
+	};
+
+	/**
+	 * Config answering a different value than the default for every item
+	 */
+	private final PartySpecialTrackerConfig changed = (PartySpecialTrackerConfig) Proxy.newProxyInstance(
+		PartySpecialTrackerConfig.class.getClassLoader(), new Class<?>[]{PartySpecialTrackerConfig.class},
+		(proxy, method, args) -> method.getDeclaringClass() == Object.class ? method.invoke(defaults, args) : Change(method.invoke(defaults, args)));
+
+	@Test
+	public void updateReReadsOnlyTheChangedItem() throws IllegalAccessException
+	{
+		PartySpecialTrackerSettings settings = PartySpecialTrackerSettings.Load(defaults, 0);
+
+		for (Method method : PartySpecialTrackerConfig.class.getDeclaredMethods())
+		{
+			ConfigItem item = method.getAnnotation(ConfigItem.class);
+			if (item == null)
+			{
+				continue;
+			}
+
+			PartySpecialTrackerSettings updated = settings.Update(item.keyName(), changed);
+			assertEquals(item.keyName(), 1, updated.getRevision());
+			assertEquals(item.keyName() + " should change exactly one setting", 1, CountChanged(settings, updated));
+		}
+	}
+
+	@Test
+	public void updateOfUnknownKeyReReadsEverything()
+	{
+		PartySpecialTrackerSettings settings = PartySpecialTrackerSettings.Load(defaults, 4);
+
+		assertEquals(PartySpecialTrackerSettings.Load(changed, 5), settings.Update("unknown", changed));
+	}
+
+	@Test
+	public void updateKeepsEarlierChanges()
+	{
+		PartySpecialTrackerSettings settings = PartySpecialTrackerSettings.Load(defaults, 0)
+			.Update("fontSize", changed)
+			.Update("boldFont", changed);
+
+		assertEquals(2, settings.getRevision());
+		assertEquals(changed.fontSize(), settings.getFontSize());
+		assertEquals(changed.boldFont(), settings.isBoldFont());
+		assertEquals(defaults.maxDistance(), settings.getMaxDistance());
+	}
+
+	@Test
+	public void visiblePlayersAreLowerCase()
+	{
+		assertEquals(Arrays.asList("alice", "bob smith"), PartySpecialTrackerSettings.ParseVisiblePlayers("Alice, Bob Smith "));
+		assertEquals(0, PartySpecialTrackerSettings.ParseVisiblePlayers("").size());
+	}
+
+	private static int CountChanged(PartySpecialTrackerSettings before, PartySpecialTrackerSettings after) throws IllegalAccessException
+	{
+		int changed = 0;
+		for (Field field : PartySpecialTrackerSettings.class.getDeclaredFields())
+		{
+			if (Modifier.isStatic(field.getModifiers()) || field.getName().equals("revision"))
+			{
+				continue;
+			}
+			field.setAccessible(true);
+			if (!Objects.equals(field.get(before), field.get(after)))
+			{
+				changed++;
+			}
+		}
+		return changed;
+	}
+
+	private static Object Change(Object value)
+	{
+		if (value instanceof Boolean)
+		{
+			return !(Boolean) value;
+		}
+		if (value instanceof Integer)
+		{
+			return (Integer) value + 1;
+		}
+		if (value instanceof String)
+		{
+			return value + "changed";
+		}
+		if (value instanceof Color)
+		{
+			return new Color(((Color) value).getRGB() ^ 0xFFFFFF);
+		}
+		if (value instanceof Enum)
+		{
+			Object[] constants = value.getClass().getEnumConstants();
+			return constants[(((Enum<?>) value).ordinal() + 1) % constants.length];
+		}
+		return value;
+	}
+}
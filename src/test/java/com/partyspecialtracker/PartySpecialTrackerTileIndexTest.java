@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2022, Jamal <http://github.com/1Defence>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.partyspecialtracker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class PartySpecialTrackerTileIndexTest
+{
+	private final PartySpecialTrackerTileIndex tileIndex = new PartySpecialTrackerTileIndex();
+
+	@Test
+	public void addCountsPlayersOnTile()
+	{
+		assertEquals(0, tileIndex.Add(50, 50, 0));
+		assertEquals(1, tileIndex.Add(50, 50, 0));
+		assertEquals(2, tileIndex.Add(50, 50, 0));
+		assertEquals(0, tileIndex.Add(51, 50, 0));
+		assertEquals(0, tileIndex.Add(50, 50, 1));
+	}
+
+	@Test
+	public void clearForgetsTiles()
+	{
+		tileIndex.Add(50, 50, 0);
+		tileIndex.Add(50, 50, 0);
+
+		tileIndex.Clear();
+
+		assertEquals(0, tileIndex.Add(50, 50, 0));
+	}
+
+	@Test
+	public void growKeepsCounts()
+	{
+		//well past the initial capacity
+		for (int i = 0; i < 500; i++)
+		{
+			assertEquals(0, tileIndex.Add(i, i / 7, 0));
+		}
+		for (int i = 0; i < 500; i++)
+		{
+			assertEquals(1, tileIndex.Add(i, i / 7, 0));
+		}
+	}
+
+	@Test
+	public void growAfterClearDropsClearedTiles()
+	{
+		for (int i = 0; i < 20; i++)
+		{
+			tileIndex.Add(i, 0, 0);
+		}
+		tileIndex.Clear();
+		for (int i = 0; i < 500; i++)
+		{
+			assertEquals(0, tileIndex.Add(i, 1, 0));
+		}
+		assertEquals(0, tileIndex.Add(0, 0, 0));
+	}
+
+	@Test
+	public void packKeepsCoordinatesApart()
+	{
+		assertNotEquals(PartySpecialTrackerTileIndex.Pack(1, 2, 0), PartySpecialTrackerTileIndex.Pack(2, 1, 0));
+		assertNotEquals(PartySpecialTrackerTileIndex.Pack(1, 2, 0), PartySpecialTrackerTileIndex.Pack(1, 2, 1));
+		assertNotEquals(PartySpecialTrackerTileIndex.Pack(16383, 0, 0), PartySpecialTrackerTileIndex.Pack(0, 1, 0));
+		assertEquals(PartySpecialTrackerTileIndex.Pack(3200, 3200, 3), PartySpecialTrackerTileIndex.Pack(3200, 3200, 3));
+	}
+}